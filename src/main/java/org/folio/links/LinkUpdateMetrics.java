@@ -0,0 +1,85 @@
+package org.folio.links;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import org.folio.metrics.ReportedMetrics;
+
+/**
+ * Per tenant metrics of note link updates. Lock wait is the time from the start of the update statement
+ * until the last requested note is locked, so growing lock wait together with retries shows contention
+ * on popular notes.
+ */
+@Component
+public class LinkUpdateMetrics implements ReportedMetrics {
+
+  private final Map<String, TenantMetrics> tenantMetrics = new ConcurrentHashMap<>();
+
+  public void recordUpdate(String tenantId, long lockWaitMillis) {
+    TenantMetrics metrics = getMetrics(tenantId);
+    metrics.updates.incrementAndGet();
+    metrics.totalLockWait.addAndGet(lockWaitMillis);
+    metrics.maxLockWait.accumulateAndGet(lockWaitMillis, Math::max);
+  }
+
+  public void recordRetry(String tenantId) {
+    getMetrics(tenantId).retries.incrementAndGet();
+  }
+
+  public void recordFailedRetries(String tenantId) {
+    getMetrics(tenantId).failedRetries.incrementAndGet();
+  }
+
+  public TenantMetrics getMetrics(String tenantId) {
+    return tenantMetrics.computeIfAbsent(tenantId, tenant -> new TenantMetrics());
+  }
+
+  @Override
+  public List<String> report() {
+    return tenantMetrics.entrySet().stream()
+      .map(entry -> {
+        TenantMetrics metrics = entry.getValue();
+        return "Note link updates of tenant " + entry.getKey() + ": updates=" + metrics.getUpdates()
+          + ", retries=" + metrics.getRetries() + ", failedRetries=" + metrics.getFailedRetries()
+          + ", totalLockWait=" + metrics.getTotalLockWait() + "ms, maxLockWait=" + metrics.getMaxLockWait() + "ms";
+      })
+      .collect(Collectors.toList());
+  }
+
+  public static class TenantMetrics {
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failedRetries = new AtomicLong();
+    private final AtomicLong totalLockWait = new AtomicLong();
+    private final AtomicLong maxLockWait = new AtomicLong();
+
+    public long getUpdates() {
+      return updates.get();
+    }
+
+    public long getRetries() {
+      return retries.get();
+    }
+
+    /**
+     * Returns number of updates that failed because of concurrent updates after all retries
+     */
+    public long getFailedRetries() {
+      return failedRetries.get();
+    }
+
+    public long getTotalLockWait() {
+      return totalLockWait.get();
+    }
+
+    public long getMaxLockWait() {
+      return maxLockWait.get();
+    }
+  }
+}
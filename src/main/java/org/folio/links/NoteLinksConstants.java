@@ -7,59 +7,243 @@ class NoteLinksConstants {
 
   static final String NOTE_TABLE = "note_data";
   static final String NOTE_TYPE_TABLE = "note_type";
-  static final String INSERT_LINKS =
-    "UPDATE %s " +
-      "SET jsonb = jsonb_insert(jsonb, '{links, -1}', ?, true) " +
-      "WHERE NOT EXISTS (SELECT FROM jsonb_array_elements(jsonb->'links') link WHERE link = ? ) AND " +
-      "id IN (%s)";
+  static final String NOTE_LINK_TABLE = "note_link";
+  static final String NOTE_LINK_COUNT_TABLE = "note_link_count";
 
   /**
-   * in this query, jsonb_set function replaces old jsonb->links array with new one,
-   * "-" is an operator that removes an element by index
-   * and (select MIN(position)-1 ...) is a subquery that calculates index of first element that matches searched link
+   * Type id that notes without type are counted with in note_link_count table
+   */
+  static final String NO_NOTE_TYPE_ID = "00000000-0000-0000-0000-000000000000";
+
+  /**
+   * Checks that note with alias "data" has a link with given type and id.
+   * Condition is resolved by primary key of note_link table, which is maintained by a trigger on note_data table
+   */
+  static final String HAS_LINK_CONDITION =
+    "EXISTS (SELECT FROM %s link WHERE link.note_id = data.id AND link.link_type = ? AND link.link_id = ?) ";
+
+  /**
+   * Checks that links of the note with alias "data" contain given link, passed as one-element json array.
+   * Unlike {@link #HAS_LINK_CONDITION} it is evaluated against the row itself, so it is re-checked on the latest
+   * row version when concurrent update of the same note is waited for
+   */
+  static final String CONTAINS_LINK_CONDITION = "(data.jsonb->'links' @> ?::jsonb) ";
+
+  private static final String LOCKED_NOTE_CONDITION = "data.id = ANY(ARRAY(SELECT id FROM locked)) ";
+
+  /**
+   * Time is taken in the outer select, so it is taken after the row is locked
+   */
+  private static final String LOCK_NOTES =
+    "WITH locked AS (" +
+      "SELECT note.id, clock_timestamp() AS locked_at FROM (" +
+      "SELECT data.id FROM %1$s AS data " +
+      "WHERE data.id = ANY(?::uuid[]) " +
+      "ORDER BY data.id FOR UPDATE) AS note), ";
+
+  /**
+   * Milliseconds from the start of the statement until the last note is locked
    */
-  static final String REMOVE_LINKS =
-    "UPDATE %s " +
-      "SET jsonb = jsonb_set(jsonb, '{links}',  " +
-      "(jsonb->'links') " +
+  private static final String LOCK_WAIT_MILLIS =
+    "COALESCE(round(extract(epoch FROM max(locked_at) - statement_timestamp()) * 1000), 0)::bigint";
+
+  static final String LOCK_WAIT_COLUMN = "lock_wait";
+
+  private static final String ASSIGN_LINK =
+    "assigned AS (" +
+      "UPDATE %1$s AS data " +
+      "SET jsonb = jsonb_insert(data.jsonb, '{links, -1}', ?, true) " +
+      "WHERE data.id = ANY(?::uuid[]) AND " + LOCKED_NOTE_CONDITION + "AND " +
+      "NOT " + CONTAINS_LINK_CONDITION +
+      "RETURNING data.id), ";
+
+  private static final String UNASSIGN_LINK =
+    "unassigned AS (" +
+      "UPDATE %1$s AS data " +
+      "SET jsonb = jsonb_set(data.jsonb, '{links}',  " +
+      "(data.jsonb->'links') " +
       " - " +
-      "(SELECT MIN(position)-1 FROM jsonb_array_elements(jsonb->'links') WITH ORDINALITY links(link, position) WHERE link = ?)::int) " +
-      "WHERE id IN (%s) " +
-      "AND EXISTS (SELECT FROM jsonb_array_elements(jsonb->'links') link WHERE link = ?)";
+      "(SELECT MIN(position)-1 FROM jsonb_array_elements(data.jsonb->'links') WITH ORDINALITY links(link, position) WHERE link = ?)::int) " +
+      "WHERE data.id = ANY(?::uuid[]) AND " + LOCKED_NOTE_CONDITION + "AND " +
+      CONTAINS_LINK_CONDITION;
+
+  /**
+   * Assigns link to notes, unassigns it from other notes and deletes notes that are left without links
+   * in one statement. Data-modifying parts of the statement see the same snapshot and can't change the same row twice,
+   * so notes that would be left without links are deleted directly instead of being updated first.
+   * <p>
+   * jsonb_insert adds the link to the end of links array,
+   * "-" is an operator that removes an element by index
+   * and (select MIN(position)-1 ...) is a subquery that calculates index of first element that matches the link.
+   * <p>
+   * All requested notes are locked in the order of id before any of them is changed, so concurrent updates
+   * that share notes wait for each other instead of deadlocking. ARRAY(SELECT ...) is evaluated once and completely
+   * before the first row is changed.
+   * <p>
+   * Parameters: ids of all requested notes, link, ids of notes to assign, link as one-element array,
+   * link, ids of notes to unassign, link as one-element array, link as one-element array,
+   * ids of notes to unassign, link as one-element array
+   */
+  static final String UPDATE_LINKS =
+    LOCK_NOTES +
+    ASSIGN_LINK +
+    UNASSIGN_LINK + "AND data.jsonb->'links' <> ?::jsonb " +
+      "RETURNING data.id), " +
+    "deleted AS (" +
+      "DELETE FROM %1$s AS data " +
+      "WHERE data.id = ANY(?::uuid[]) AND " + LOCKED_NOTE_CONDITION + "AND " +
+      "(data.jsonb->'links' = ?::jsonb OR data.jsonb->'links' = '[]'::jsonb) " +
+      "RETURNING data.id) " +
+    "SELECT (SELECT count(*) FROM assigned) AS assigned, " +
+      "(SELECT count(*) FROM unassigned) + (SELECT count(*) FROM deleted) AS unassigned, " +
+      "(SELECT " + LOCK_WAIT_MILLIS + " FROM locked) AS " + LOCK_WAIT_COLUMN;
+
+  /**
+   * Same as {@link #UPDATE_LINKS}, but notes that are left without links are kept,
+   * they are deleted later by the sweeper of orphan notes.
+   * <p>
+   * Parameters: ids of all requested notes, link, ids of notes to assign, link as one-element array,
+   * link, ids of notes to unassign, link as one-element array
+   */
+  static final String UPDATE_LINKS_KEEPING_NOTES =
+    LOCK_NOTES +
+    ASSIGN_LINK +
+    UNASSIGN_LINK +
+      "RETURNING data.id) " +
+    "SELECT (SELECT count(*) FROM assigned) AS assigned, (SELECT count(*) FROM unassigned) AS unassigned, " +
+      "(SELECT " + LOCK_WAIT_MILLIS + " FROM locked) AS " + LOCK_WAIT_COLUMN;
+
+  /**
+   * Requested note links are passed as one json array of objects with note_id, type, id and status fields
+   */
+  private static final String REQUESTED_LINKS =
+    "jsonb_to_recordset(?::jsonb) AS req(note_id uuid, type text, id text, status text) ";
+
+  private static final String REQUESTED_LINK = "jsonb_build_array(jsonb_build_object('id', req.id, 'type', req.type))";
+
+  /**
+   * Notes are locked in the order of id, so that concurrent batches that share notes don't deadlock.
+   * Selects time spent until the last note is locked
+   */
+  static final String LOCK_NOTES_OF_REQUESTED_LINKS =
+    "SELECT " + LOCK_WAIT_MILLIS + " AS " + LOCK_WAIT_COLUMN + " FROM (" +
+      "SELECT clock_timestamp() AS locked_at FROM (" +
+      "SELECT data.id FROM %s AS data " +
+      "WHERE data.id IN (SELECT req.note_id FROM " + REQUESTED_LINKS + ") " +
+      "ORDER BY data.id FOR UPDATE) AS note) AS locked";
 
-  static final String DELETE_NOTES_WITHOUT_LINKS =
-    "DELETE FROM %s " +
-      "WHERE id IN (%s) AND " +
-      "jsonb->'links' = '[]'::jsonb";
+  /**
+   * Counts notes that will be changed by the requested links, grouped by entity and status
+   */
+  static final String COUNT_CHANGES_OF_REQUESTED_LINKS =
+    "SELECT req.type, req.id, req.status, count(DISTINCT req.note_id) AS count " +
+      "FROM " + REQUESTED_LINKS +
+      "JOIN %s AS data ON data.id = req.note_id " +
+      "WHERE (req.status = 'ASSIGNED') <> (data.jsonb->'links' @> " + REQUESTED_LINK + ") " +
+      "GROUP BY req.type, req.id, req.status";
+
+  /**
+   * Appends all requested links of a note by one update of the note, links that the note already has are skipped
+   */
+  static final String INSERT_REQUESTED_LINKS =
+    "UPDATE %s AS data " +
+      "SET jsonb = jsonb_set(data.jsonb, '{links}', (data.jsonb->'links') || " +
+      "(SELECT jsonb_agg(link) FROM jsonb_array_elements(added.links) link " +
+      "WHERE NOT data.jsonb->'links' @> jsonb_build_array(link))) " +
+      "FROM (SELECT req.note_id, jsonb_agg(DISTINCT jsonb_build_object('id', req.id, 'type', req.type)) AS links " +
+      "FROM " + REQUESTED_LINKS + "WHERE req.status = 'ASSIGNED' GROUP BY req.note_id) AS added " +
+      "WHERE data.id = added.note_id AND " +
+      "EXISTS (SELECT FROM jsonb_array_elements(added.links) link WHERE NOT data.jsonb->'links' @> jsonb_build_array(link))";
+
+  /**
+   * Removes all requested links of a note by one update of the note, order of the remaining links is kept.
+   * Like {@link #UPDATE_LINKS}, only the first occurrence of a link is removed if the note has it more than once
+   */
+  static final String REMOVE_REQUESTED_LINKS =
+    "UPDATE %s AS data " +
+      "SET jsonb = jsonb_set(data.jsonb, '{links}', COALESCE(" +
+      "(SELECT jsonb_agg(link ORDER BY position) " +
+      "FROM jsonb_array_elements(data.jsonb->'links') WITH ORDINALITY links(link, position) " +
+      "WHERE NOT removed.links @> jsonb_build_array(link) OR position > " +
+      "(SELECT MIN(earlier.position) FROM jsonb_array_elements(data.jsonb->'links') WITH ORDINALITY earlier(link, position) " +
+      "WHERE earlier.link = links.link)), '[]'::jsonb)) " +
+      "FROM (SELECT req.note_id, jsonb_agg(jsonb_build_object('id', req.id, 'type', req.type)) AS links " +
+      "FROM " + REQUESTED_LINKS + "WHERE req.status = 'UNASSIGNED' GROUP BY req.note_id) AS removed " +
+      "WHERE data.id = removed.note_id AND " +
+      "EXISTS (SELECT FROM jsonb_array_elements(removed.links) link WHERE data.jsonb->'links' @> jsonb_build_array(link))";
+
+  static final String DELETE_NOTES_WITHOUT_REQUESTED_LINKS =
+    "DELETE FROM %s AS data " +
+      "WHERE data.id IN (SELECT req.note_id FROM " + REQUESTED_LINKS + "WHERE req.status = 'UNASSIGNED') AND " +
+      "data.jsonb->'links' = '[]'::jsonb";
+
+  static final String TITLE_EXPRESSION = "data.jsonb->>'title'";
 
-  static final String HAS_LINK_CONDITION = "EXISTS (SELECT FROM jsonb_array_elements(data.jsonb->'links') link WHERE link = ?) ";
+  /**
+   * links_count column is maintained by a trigger on note_data table and is indexed together with domain
+   */
+  static final String LINKS_NUMBER_EXPRESSION = "data.links_count";
 
-  static final String ORDER_BY_STATUS_CLAUSE = "ORDER BY " +
-    "(" +
-    "CASE WHEN " + HAS_LINK_CONDITION +
-    "THEN 'ASSIGNED'" +
-    "ELSE 'UNASSIGNED' END" +
-    ") %s ";
+  /**
+   * Notes with equal sort key are additionally ordered by id, so that every note has a unique position
+   * that can be used as a page cursor
+   */
+  static final String ORDER_BY_CLAUSE = "ORDER BY %1$s %2$s, data.id %2$s ";
+
+  /**
+   * Selects notes positioned after the cursor, "&gt;" is used for ascending order and "&lt;" for descending
+   */
+  static final String AFTER_CURSOR_CONDITION = "AND (%s, data.id) %s (?, ?::uuid) ";
 
-  static final String ORDER_BY_TITLE_CLAUSE = "ORDER BY data.jsonb->>'title' %s ";
+  /**
+   * Notes of the same status are ordered by id only, status is resolved by a separate query per status
+   */
+  static final String ORDER_BY_ID_CLAUSE = "ORDER BY data.id %s ";
 
-  static final String ORDER_BY_LINKS_NUMBER = "ORDER BY json_array_length((data.jsonb->>'links')::json) %s ";
+  static final String AFTER_ID_CONDITION = "AND data.id %s ?::uuid ";
 
   static final String LIMIT_OFFSET = "LIMIT ? OFFSET ? ";
 
-  private static final String JOIN_NOTE_TYPE_TABLE = "LEFT JOIN %s as type on (data.jsonb -> 'typeId' = type.jsonb -> 'id') ";
+  private static final String WHERE_CLAUSE_BY_DOMAIN = "WHERE (data.jsonb->>'domain' = ?) ";
+
+  /**
+   * title_normalized column keeps unaccented title and is maintained by a trigger on note_data table,
+   * the column has trigram index that is used to match the regex
+   */
+  static final String WHERE_CLAUSE_BY_TITLE = "AND (data.title_normalized ~* f_unaccent(?)) ";
+
+  /**
+   * Note type names are resolved to ids by uncorrelated subquery,
+   * notes are filtered by indexed temporary_type_id column that is maintained by a trigger on note_data table
+   */
+  static final String WHERE_CLAUSE_BY_NOTE_TYPE =
+    " AND (data.temporary_type_id IN (SELECT type.id FROM %s as type WHERE type.jsonb ->> 'name' = ANY(?::text[]))) ";
 
-  private static final String WHERE_CLAUSE_BY_DOMAIN_AND_TITLE =
-    "WHERE (data.jsonb->>'domain' = ?) AND (f_unaccent(data.jsonb->>'title') ~* f_unaccent(?)) ";
+  static final String TOTAL_COUNT_COLUMN = ", count(*) OVER() as total_count";
 
-  static final String WHERE_CLAUSE_BY_NOTE_TYPE = " AND (type.jsonb ->> 'name' IN (%s)) ";
+  static final String SELECT_NOTES_BY_DOMAIN =
+    "SELECT data.id, data.jsonb%s FROM %s as data " + WHERE_CLAUSE_BY_DOMAIN;
 
-  static final String SELECT_NOTES_BY_DOMAIN_AND_TITLE =
-    "SELECT data.id, data.jsonb FROM %s as data " + JOIN_NOTE_TYPE_TABLE + WHERE_CLAUSE_BY_DOMAIN_AND_TITLE;
+  static final String COUNT_NOTES_BY_DOMAIN =
+    "SELECT COUNT(data.id) as count FROM %s as data " + WHERE_CLAUSE_BY_DOMAIN;
 
-  static final String COUNT_NOTES_BY_DOMAIN_AND_TITLE =
-    "SELECT COUNT(data.id) as count FROM %s as data " + JOIN_NOTE_TYPE_TABLE + WHERE_CLAUSE_BY_DOMAIN_AND_TITLE;
+  /**
+   * Hides notes that are left without links and are not deleted yet by the sweeper of orphan notes
+   */
+  static final String WHERE_CLAUSE_HAS_LINKS = "AND (data.links_count > 0) ";
+
+  /**
+   * Selects number of notes of every note type for every requested entity, entities are passed as one json array
+   * of objects with domain, type and id fields. Counts are maintained by a trigger on note_data table.
+   * Entity that is requested more than once is selected once, so that its counts are not repeated
+   */
+  static final String SELECT_NOTE_COUNTS_BY_ENTITIES =
+    "SELECT req.domain, req.type, req.id, cnt.type_id, type.jsonb->>'name' AS type_name, cnt.count " +
+      "FROM (SELECT DISTINCT domain, type, id " +
+      "FROM jsonb_to_recordset(?::jsonb) AS entity(domain text, type text, id text)) AS req " +
+      "JOIN %s AS cnt ON cnt.domain = req.domain AND cnt.link_type = req.type AND cnt.link_id = req.id " +
+      "LEFT JOIN %s AS type ON type.id = cnt.type_id " +
+      "WHERE cnt.count > 0";
 
-  static final String ANY_STRING_PATTERN = ".*";
   static final String WORD_PATTERN = "\\m%s\\M";
 }
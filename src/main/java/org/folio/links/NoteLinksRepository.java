@@ -7,19 +7,52 @@ import io.vertx.core.Future;
 import org.folio.model.EntityLink;
 import org.folio.model.Order;
 import org.folio.model.OrderBy;
+import org.folio.model.PageCursor;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.RowCount;
 import org.folio.model.RowPortion;
 import org.folio.model.Status;
+import org.folio.rest.jaxrs.model.EntityNoteCount;
+import org.folio.rest.jaxrs.model.EntityNoteLinksPut;
+import org.folio.rest.jaxrs.model.EntityNoteLinksResult;
 import org.folio.rest.jaxrs.model.Link;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.LinkedEntity;
 
 public interface NoteLinksRepository {
 
   Future<Void> update(Link link, List<String> assignNotes, List<String> unAssignNotes, String tenantId);
 
-  Future<NoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
+  /**
+   * Updates links of all entities in one transaction. Returns number of changed notes for every entity
+   * in the order of entities
+   */
+  Future<List<EntityNoteLinksResult>> updateAll(List<EntityNoteLinksPut> entities, String tenantId);
+
+  /**
+   * Returns a page of notes. If cursor is specified then the page starts right after the cursor position.
+   * If countTotal is true then total number of matching notes is calculated by the same query and set to the collection,
+   * unless the page is empty. Total number is calculated for notes after the cursor only.
+   * If the page is full then the collection contains cursor pointing to its last note.
+   * Notes are kept in the collection as json text.
+   */
+  Future<RawNoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
                                                               Status status, OrderBy orderBy, Order order,
-                                                              RowPortion rowPortion, String tenantId);
+                                                              RowPortion rowPortion, PageCursor cursor, boolean countTotal,
+                                                              String tenantId);
+
+  /**
+   * Returns number of notes linked to every entity together with number of notes of every note type,
+   * in the order of entities
+   */
+  Future<List<EntityNoteCount>> countNotesByEntities(List<LinkedEntity> entities, String tenantId);
 
   Future<Integer> countNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes, Status status,
                                                         String tenantId);
+
+  /**
+   * Returns number of matching notes estimated by query planner if the estimate is above the threshold,
+   * otherwise matching notes are counted exactly
+   */
+  Future<RowCount> estimateNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
+                                                           Status status, String tenantId);
 }
@@ -1,106 +1,374 @@
 package org.folio.links;
 
+import static io.vertx.core.Future.failedFuture;
 import static io.vertx.core.Future.succeededFuture;
 
-import static org.folio.links.NoteLinksConstants.ANY_STRING_PATTERN;
-import static org.folio.links.NoteLinksConstants.COUNT_NOTES_BY_DOMAIN_AND_TITLE;
-import static org.folio.links.NoteLinksConstants.DELETE_NOTES_WITHOUT_LINKS;
+import static org.folio.links.NoteLinksConstants.AFTER_CURSOR_CONDITION;
+import static org.folio.links.NoteLinksConstants.AFTER_ID_CONDITION;
+import static org.folio.links.NoteLinksConstants.COUNT_NOTES_BY_DOMAIN;
+import static org.folio.links.NoteLinksConstants.COUNT_CHANGES_OF_REQUESTED_LINKS;
+import static org.folio.links.NoteLinksConstants.DELETE_NOTES_WITHOUT_REQUESTED_LINKS;
 import static org.folio.links.NoteLinksConstants.HAS_LINK_CONDITION;
-import static org.folio.links.NoteLinksConstants.INSERT_LINKS;
+import static org.folio.links.NoteLinksConstants.INSERT_REQUESTED_LINKS;
 import static org.folio.links.NoteLinksConstants.LIMIT_OFFSET;
+import static org.folio.links.NoteLinksConstants.LOCK_WAIT_COLUMN;
+import static org.folio.links.NoteLinksConstants.LOCK_NOTES_OF_REQUESTED_LINKS;
+import static org.folio.links.NoteLinksConstants.NOTE_LINK_COUNT_TABLE;
+import static org.folio.links.NoteLinksConstants.NOTE_LINK_TABLE;
 import static org.folio.links.NoteLinksConstants.NOTE_TABLE;
 import static org.folio.links.NoteLinksConstants.NOTE_TYPE_TABLE;
-import static org.folio.links.NoteLinksConstants.ORDER_BY_LINKS_NUMBER;
-import static org.folio.links.NoteLinksConstants.ORDER_BY_STATUS_CLAUSE;
-import static org.folio.links.NoteLinksConstants.ORDER_BY_TITLE_CLAUSE;
-import static org.folio.links.NoteLinksConstants.REMOVE_LINKS;
-import static org.folio.links.NoteLinksConstants.SELECT_NOTES_BY_DOMAIN_AND_TITLE;
+import static org.folio.links.NoteLinksConstants.NO_NOTE_TYPE_ID;
+import static org.folio.links.NoteLinksConstants.LINKS_NUMBER_EXPRESSION;
+import static org.folio.links.NoteLinksConstants.ORDER_BY_CLAUSE;
+import static org.folio.links.NoteLinksConstants.ORDER_BY_ID_CLAUSE;
+import static org.folio.links.NoteLinksConstants.REMOVE_REQUESTED_LINKS;
+import static org.folio.links.NoteLinksConstants.SELECT_NOTES_BY_DOMAIN;
+import static org.folio.links.NoteLinksConstants.SELECT_NOTE_COUNTS_BY_ENTITIES;
+import static org.folio.links.NoteLinksConstants.TITLE_EXPRESSION;
+import static org.folio.links.NoteLinksConstants.TOTAL_COUNT_COLUMN;
+import static org.folio.links.NoteLinksConstants.UPDATE_LINKS;
+import static org.folio.links.NoteLinksConstants.UPDATE_LINKS_KEEPING_NOTES;
 import static org.folio.links.NoteLinksConstants.WHERE_CLAUSE_BY_NOTE_TYPE;
+import static org.folio.links.NoteLinksConstants.WHERE_CLAUSE_BY_TITLE;
+import static org.folio.links.NoteLinksConstants.WHERE_CLAUSE_HAS_LINKS;
 import static org.folio.links.NoteLinksConstants.WORD_PATTERN;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.sql.ResultSet;
 import io.vertx.ext.sql.SQLConnection;
 import io.vertx.ext.sql.UpdateResult;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
 import org.apache.commons.lang3.mutable.MutableObject;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import org.folio.db.DbUtils;
+import org.folio.db.exc.translation.DBExceptionTranslator;
 import org.folio.model.EntityLink;
 import org.folio.model.Order;
 import org.folio.model.OrderBy;
+import org.folio.model.PageCursor;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.RowCount;
 import org.folio.model.RowPortion;
 import org.folio.model.Status;
+import org.folio.note.NoteCache;
+import org.folio.rest.exceptions.ConcurrentUpdateException;
+import org.folio.rest.jaxrs.model.EntityNoteCount;
+import org.folio.rest.jaxrs.model.EntityNoteLinksPut;
+import org.folio.rest.jaxrs.model.EntityNoteLinksResult;
 import org.folio.rest.jaxrs.model.Link;
-import org.folio.rest.jaxrs.model.Note;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.LinkedEntity;
+import org.folio.rest.jaxrs.model.NoteLinkPut;
+import org.folio.rest.jaxrs.model.NoteTypeCount;
 import org.folio.rest.persist.PostgresClient;
+import org.folio.util.DbCursorReader;
+import org.folio.util.DbRowCounter;
 
 @Component
 public class NoteLinksRepositoryImpl implements NoteLinksRepository {
 
   private static final String SPECIAL_REGEX_SYMBOLS = "!$()*+.:<=>?[]\\^{|}-";
   private static final String ESCAPED_ANY_STRING_WILDCARD = "\\*";
+  private static final int JSONB_COLUMN_INDEX = 1;
+  private static final int TOTAL_COUNT_COLUMN_INDEX = 2;
+  private static final String ID = "id";
+  private static final String TYPE = "type";
+  private static final String TITLE = "title";
+  private static final String LINKS = "links";
+  private static final String NOTE_ID = "note_id";
+  private static final String STATUS = "status";
+  private static final String COUNT = "count";
+  private static final String DOMAIN = "domain";
+  private static final String TYPE_ID = "type_id";
+  private static final String TYPE_NAME = "type_name";
+  private static final char ARRAY_ELEMENT_QUOTE = '"';
+  private static final String DEADLOCK_DETECTED = "40P01";
+  private static final String SERIALIZATION_FAILURE = "40001";
+  private final Logger logger = LoggerFactory.getLogger(NoteLinksRepositoryImpl.class);
   private Vertx vertx;
+  private DBExceptionTranslator excTranslator;
+  private LinkUpdateMetrics linkUpdateMetrics;
+  private NoteCache noteCache;
+  @Value("${note.links.update.retries}")
+  private int updateRetries;
+  @Value("${note.links.update.retry.delay}")
+  private long updateRetryDelay;
+  @Value("${note.orphans.deferred.deletion}")
+  private boolean deferredOrphansDeletion;
+  @Value("${note.total.records.estimate.threshold}")
+  private int estimateThreshold;
+  @Value("${note.read.fetch.size}")
+  private int fetchSize;
 
   @Autowired
-  public NoteLinksRepositoryImpl(Vertx vertx) {
+  public NoteLinksRepositoryImpl(Vertx vertx, DBExceptionTranslator excTranslator, LinkUpdateMetrics linkUpdateMetrics,
+                                 NoteCache noteCache) {
     this.vertx = vertx;
+    this.excTranslator = excTranslator;
+    this.linkUpdateMetrics = linkUpdateMetrics;
+    this.noteCache = noteCache;
   }
 
+  /**
+   * Notes that are both in assign and unassign lists are unassigned,
+   * the same as if assignment was applied first and unassignment after it.
+   * If deletion of orphan notes is deferred, notes that are left without links are kept
+   * and are deleted later by {@link org.folio.note.OrphanNoteSweeper}
+   */
   @Override
   public Future<Void> update(Link link, List<String> assignNotes, List<String> unAssignNotes, String tenantId) {
+    if (assignNotes.isEmpty() && unAssignNotes.isEmpty()) {
+      return succeededFuture();
+    }
+    Set<String> unAssignNoteIds = new HashSet<>(unAssignNotes);
+    List<String> onlyAssignNotes = assignNotes.stream()
+      .filter(noteId -> !unAssignNoteIds.contains(noteId))
+      .collect(Collectors.toList());
+    String linkJson = Json.encode(link);
+    String linkArrayJson = Json.encode(Collections.singletonList(link));
+    String unAssignIds = createArrayParameter(unAssignNotes);
+    List<String> allNotes = new ArrayList<>(assignNotes);
+    allNotes.addAll(unAssignNotes);
+    JsonArray parameters = new JsonArray()
+      .add(createArrayParameter(allNotes))
+      .add(linkJson)
+      .add(createArrayParameter(onlyAssignNotes))
+      .add(linkArrayJson)
+      .add(linkJson)
+      .add(unAssignIds)
+      .add(linkArrayJson);
+    if (!deferredOrphansDeletion) {
+      parameters
+        .add(linkArrayJson)
+        .add(unAssignIds)
+        .add(linkArrayJson);
+    }
+
+    String query = String.format(deferredOrphansDeletion ? UPDATE_LINKS_KEEPING_NOTES : UPDATE_LINKS,
+      getNoteTableName(tenantId));
+    return withRetries(() -> select(query, parameters, tenantId), tenantId, 0)
+      .map(resultSet -> {
+        linkUpdateMetrics.recordUpdate(tenantId, getLockWait(resultSet));
+        noteCache.invalidate(tenantId, allNotes);
+        return null;
+      });
+  }
+
+  @Override
+  public Future<List<EntityNoteLinksResult>> updateAll(List<EntityNoteLinksPut> entities, String tenantId) {
+    return withRetries(() -> updateAllInTransaction(entities, tenantId), tenantId, 0)
+      .map(results -> {
+        entities.forEach(entity -> entity.getNotes().forEach(note -> noteCache.invalidate(tenantId, note.getId())));
+        return results;
+      });
+  }
+
+  private Future<List<EntityNoteLinksResult>> updateAllInTransaction(List<EntityNoteLinksPut> entities, String tenantId) {
     PostgresClient postgresClient = pgClient(tenantId);
     MutableObject<AsyncResult<SQLConnection>> connection = new MutableObject<>();
+    JsonArray parameters = new JsonArray().add(createRequestedLinks(entities));
+    String noteTable = getNoteTableName(tenantId);
 
+    MutableObject<ResultSet> changes = new MutableObject<>();
+    MutableLong lockWait = new MutableLong();
     return startTransaction(postgresClient)
       .compose(resultConnection -> {
         connection.setValue(resultConnection);
-        return assignToNotes(assignNotes, link, postgresClient, connection.getValue(), tenantId);
+        return select(String.format(LOCK_NOTES_OF_REQUESTED_LINKS, noteTable), parameters, postgresClient,
+          connection.getValue());
+      })
+      .compose(resultSet -> {
+        lockWait.setValue(getLockWait(resultSet));
+        return select(String.format(COUNT_CHANGES_OF_REQUESTED_LINKS, noteTable), parameters, postgresClient,
+          connection.getValue());
+      })
+      .compose(resultSet -> {
+        changes.setValue(resultSet);
+        return execute(String.format(INSERT_REQUESTED_LINKS, noteTable), parameters, postgresClient, connection.getValue());
+      })
+      .compose(o -> execute(String.format(REMOVE_REQUESTED_LINKS, noteTable), parameters, postgresClient,
+        connection.getValue()))
+      .compose(o -> deferredOrphansDeletion
+        ? succeededFuture()
+        : execute(String.format(DELETE_NOTES_WITHOUT_REQUESTED_LINKS, noteTable), parameters, postgresClient,
+          connection.getValue()))
+      .compose(o -> endTransaction(postgresClient, connection.getValue()))
+      .map(o -> {
+        linkUpdateMetrics.recordUpdate(tenantId, lockWait.longValue());
+        return mapEntityResults(entities, changes.getValue());
       })
-      .compose(o -> unAssignFromNotes(unAssignNotes, link, postgresClient, connection.getValue(), tenantId))
-      .compose(result -> endTransaction(postgresClient, connection.getValue()))
       // recover is used to do a rollback and keep processing failed Future after rollback
-      .recover(e -> rollbackTransaction(postgresClient, connection, e));
+      .recover(e -> rollbackTransaction(postgresClient, connection, e).map(o -> null));
   }
 
   @Override
-  public Future<NoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes, Status status,
-                                                                     OrderBy orderBy, Order order, RowPortion rowPortion, String tenantId) {
+  public Future<RawNoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes, Status status,
+                                                                        OrderBy orderBy, Order order, RowPortion rowPortion,
+                                                                        PageCursor cursor, boolean countTotal, String tenantId) {
+    if (orderBy == OrderBy.STATUS) {
+      return findNotesOrderedByStatus(link, title, noteTypes, status, order, rowPortion, cursor, countTotal, tenantId);
+    }
     JsonArray parameters = new JsonArray();
     StringBuilder queryBuilder = new StringBuilder();
 
-    addSelectClause(parameters, queryBuilder, link.getDomain(), title, tenantId);
+    addSelectClause(parameters, queryBuilder, link.getDomain(), title, countTotal, tenantId);
 
-    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes);
+    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes, tenantId);
 
-    String jsonLink = Json.encode(toLink(link));
-    addWhereClause(parameters, queryBuilder, status, jsonLink);
+    addWhereClause(parameters, queryBuilder, status, link, tenantId);
 
-    addOrderByClause(parameters, queryBuilder, order, orderBy, jsonLink);
+    addCursorClause(parameters, queryBuilder, cursor);
 
-    addLimitOffset(parameters, queryBuilder, rowPortion);
+    addOrderByClause(queryBuilder, order, orderBy);
 
-    Promise<ResultSet> promise = Promise.promise();
-    pgClient(tenantId).select(queryBuilder.toString(), parameters, promise);
+    // one more note than the limit is selected to find out if there is a next page
+    addLimitOffset(parameters, queryBuilder, new RowPortion(rowPortion.getOffset(), rowPortion.getLimit() + 1));
 
-    return promise.future().map(this::mapResultToNoteCollection);
+    RawNoteCollection notes = new RawNoteCollection();
+    return readNotes(notes, queryBuilder.toString(), parameters, rowPortion.getLimit(), tenantId)
+      .map(hasMore -> notes.withNextCursor(createNextCursor(notes, link, orderBy, order, hasMore)));
   }
 
-  private void addWhereNoteTypeClause(JsonArray parameters, StringBuilder query, List<String> noteTypes) {
+  /**
+   * Notes ordered by status are selected in one pass per status, assigned notes go first for ascending order
+   * and unassigned ones for descending. Every pass is ordered by id and is limited by the number of notes missing
+   * from the page, so the status of a note is never evaluated for the whole domain.
+   * If the page is filled up by a pass, the next pass only checks that there are more notes
+   */
+  private Future<RawNoteCollection> findNotesOrderedByStatus(EntityLink link, String title, List<String> noteTypes,
+                                                             Status status, Order order, RowPortion rowPortion,
+                                                             PageCursor cursor, boolean countTotal, String tenantId) {
+    RawNoteCollection notes = new RawNoteCollection();
+    Future<Boolean> found = findNotesInStatusPasses(getStatusPasses(status, order, cursor).iterator(), notes, link, title,
+      noteTypes, order, rowPortion, cursor, tenantId);
+    Future<Integer> count = countTotal
+      ? countNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, status, tenantId)
+      : succeededFuture(null);
+
+    return CompositeFuture.all(found, count)
+      .map(o -> notes
+        .withTotalRecords(count.result())
+        .withNextCursor(createNextCursor(notes, link, OrderBy.STATUS, order, found.result())));
+  }
+
+  private List<Status> getStatusPasses(Status status, Order order, PageCursor cursor) {
+    List<Status> passes = new ArrayList<>(Arrays.asList(Status.ASSIGNED, Status.UNASSIGNED));
+    if (order == Order.DESC) {
+      Collections.reverse(passes);
+    }
+    if (status != Status.ALL) {
+      passes.retainAll(Collections.singletonList(status));
+    }
+    if (cursor != null) {
+      // passes before the status of the cursor are already read
+      int cursorPass = passes.indexOf(Status.valueOf(cursor.getKey()));
+      return cursorPass >= 0 ? passes.subList(cursorPass, passes.size()) : Collections.emptyList();
+    }
+    return passes;
+  }
+
+  /**
+   * Returns true if there are more notes after the page
+   */
+  private Future<Boolean> findNotesInStatusPasses(Iterator<Status> passes, RawNoteCollection notes, EntityLink link,
+                                                  String title, List<String> noteTypes, Order order,
+                                                  RowPortion rowPortion, PageCursor cursor, String tenantId) {
+    if (!passes.hasNext()) {
+      return succeededFuture(false);
+    }
+    Status passStatus = passes.next();
+    String afterId = cursor != null && passStatus.name().equals(cursor.getKey()) ? cursor.getId() : null;
+    RowPortion passPortion = new RowPortion(rowPortion.getOffset(), rowPortion.getLimit() - notes.size());
+    int foundBefore = notes.size();
+
+    return findNotesWithStatusOrderedById(notes, link, title, noteTypes, passStatus, order, passPortion, afterId, tenantId)
+      .compose(hasMore -> {
+        if (hasMore || !passes.hasNext()) {
+          return succeededFuture(hasMore);
+        }
+        if (notes.size() > foundBefore || rowPortion.getOffset() == 0) {
+          // offset is used up by this pass
+          return findNotesInStatusPasses(passes, notes, link, title, noteTypes, order,
+            new RowPortion(0, rowPortion.getLimit()), null, tenantId);
+        }
+        // offset is beyond the notes of this pass, the rest of offset is applied to the next pass
+        return countNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, passStatus, tenantId)
+          .compose(passCount -> findNotesInStatusPasses(passes, notes, link, title, noteTypes, order,
+            new RowPortion(Math.max(0, rowPortion.getOffset() - passCount), rowPortion.getLimit()), null, tenantId));
+      });
+  }
+
+  private Future<Boolean> findNotesWithStatusOrderedById(RawNoteCollection notes, EntityLink link, String title,
+                                                         List<String> noteTypes, Status status, Order order,
+                                                         RowPortion rowPortion, String afterId, String tenantId) {
+    JsonArray parameters = new JsonArray();
+    StringBuilder queryBuilder = new StringBuilder();
+
+    addSelectClause(parameters, queryBuilder, link.getDomain(), title, false, tenantId);
+
+    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes, tenantId);
+
+    addWhereClause(parameters, queryBuilder, status, link, tenantId);
+
+    if (afterId != null) {
+      queryBuilder.append(String.format(AFTER_ID_CONDITION, order == Order.ASC ? ">" : "<"));
+      parameters.add(afterId);
+    }
+
+    queryBuilder.append(String.format(ORDER_BY_ID_CLAUSE, order.toString()));
+
+    addLimitOffset(parameters, queryBuilder, new RowPortion(rowPortion.getOffset(), rowPortion.getLimit() + 1));
+
+    return readNotes(notes, queryBuilder.toString(), parameters, rowPortion.getLimit(), tenantId);
+  }
+
+  /**
+   * Appends jsonb of selected notes to the collection as it is, at most limit notes are appended.
+   * Total count is taken from the first row if the query selects it.
+   * The query selects at most limit + 1 notes, they are read through a database cursor in batches of fetch size.
+   * Returns true if the query selected more notes than the limit
+   */
+  private Future<Boolean> readNotes(RawNoteCollection notes, String query, JsonArray parameters, int limit,
+                                    String tenantId) {
+    MutableInt read = new MutableInt();
+    return DbCursorReader.read(pgClient(tenantId), query, parameters, limit + 1, fetchSize, row -> {
+      if (read.intValue() == 0 && row.size() > TOTAL_COUNT_COLUMN_INDEX) {
+        notes.withTotalRecords(((Number) row.getValue(TOTAL_COUNT_COLUMN_INDEX)).intValue());
+      }
+      if (read.intValue() < limit) {
+        notes.addNote(String.valueOf(row.getValue(JSONB_COLUMN_INDEX)));
+      }
+      read.increment();
+    }).map(o -> read.intValue() > limit);
+  }
+
+  private void addWhereNoteTypeClause(JsonArray parameters, StringBuilder query, List<String> noteTypes, String tenantId) {
 
     noteTypes.replaceAll(String::trim);
 
@@ -108,8 +376,17 @@ public class NoteLinksRepositoryImpl implements NoteLinksRepository {
       return;
     }
 
-    query.append(String.format(WHERE_CLAUSE_BY_NOTE_TYPE, createIdPlaceholders(noteTypes.size())));
-    noteTypes.forEach(parameters::add);
+    query.append(String.format(WHERE_CLAUSE_BY_NOTE_TYPE, getNoteTypeTableName(tenantId)));
+    parameters.add(createArrayParameter(noteTypes));
+  }
+
+  @Override
+  public Future<List<EntityNoteCount>> countNotesByEntities(List<LinkedEntity> entities, String tenantId) {
+    JsonArray parameters = new JsonArray().add(Json.encode(entities));
+    String query = String.format(SELECT_NOTE_COUNTS_BY_ENTITIES, getNoteLinkCountTableName(tenantId),
+      getNoteTypeTableName(tenantId));
+
+    return select(query, parameters, tenantId).map(resultSet -> mapEntityCounts(entities, resultSet));
   }
 
   @Override
@@ -121,77 +398,141 @@ public class NoteLinksRepositoryImpl implements NoteLinksRepository {
 
     addSelectCountClause(parameters, queryBuilder, link.getDomain(), title, tenantId);
 
-    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes);
+    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes, tenantId);
 
-    String jsonLink = Json.encode(toLink(link));
-    addWhereClause(parameters, queryBuilder, status, jsonLink);
+    addWhereClause(parameters, queryBuilder, status, link, tenantId);
 
-    Promise<ResultSet> promise = Promise.promise();
-    pgClient(tenantId).select(queryBuilder.toString(), parameters, promise);
+    return select(queryBuilder.toString(), parameters, tenantId).map(this::mapCount);
+  }
 
-    return promise.future().map(this::mapCount);
+  @Override
+  public Future<RowCount> estimateNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
+                                                                   Status status, String tenantId) {
+    JsonArray parameters = new JsonArray();
+    StringBuilder queryBuilder = new StringBuilder();
+
+    addSelectClause(parameters, queryBuilder, link.getDomain(), title, false, tenantId);
+
+    addWhereNoteTypeClause(parameters, queryBuilder, noteTypes, tenantId);
+
+    addWhereClause(parameters, queryBuilder, status, link, tenantId);
+
+    return DbRowCounter.estimateAboveThreshold(pgClient(tenantId), queryBuilder.toString(), parameters,
+      estimateThreshold);
   }
 
-  private Future<Void> assignToNotes(List<String> notesIds, Link linkToAssign, PostgresClient postgresClient,
-                                     AsyncResult<SQLConnection> connection, String tenantId) {
-    if (notesIds.isEmpty()) {
-      return succeededFuture(null);
-    }
-    String placeholders = createIdPlaceholders(notesIds.size());
-    String query = String.format(INSERT_LINKS, getNoteTableName(tenantId), placeholders);
-    JsonArray parameters = createAssignParameters(notesIds, linkToAssign);
+  private Future<ResultSet> select(String query, JsonArray parameters, String tenantId) {
+    Promise<ResultSet> promise = Promise.promise();
+    pgClient(tenantId).select(query, parameters, promise);
+    return promise.future();
+  }
+
+  private Future<ResultSet> select(String query, JsonArray parameters, PostgresClient postgresClient,
+                                   AsyncResult<SQLConnection> connection) {
+    Promise<ResultSet> promise = Promise.promise();
+    postgresClient.select(connection, query, parameters, promise);
+    return promise.future();
+  }
 
+  private Future<Void> execute(String query, JsonArray parameters, PostgresClient postgresClient,
+                               AsyncResult<SQLConnection> connection) {
     Promise<UpdateResult> promise = Promise.promise();
     postgresClient.execute(connection, query, parameters, promise);
-
     return promise.future().map(result -> null);
   }
 
-  private Future<Void> unAssignFromNotes(List<String> notesIds, Link link, PostgresClient postgresClient,
-                                         AsyncResult<SQLConnection> connection, String tenantId) {
-    if (notesIds.isEmpty()) {
-      return succeededFuture(null);
-    }
-    String placeholders = createIdPlaceholders(notesIds.size());
-    String query = String.format(REMOVE_LINKS, getNoteTableName(tenantId), placeholders);
-    JsonArray parameters = createUnAssignParameters(notesIds, link);
+  private String createRequestedLinks(List<EntityNoteLinksPut> entities) {
+    JsonArray links = new JsonArray();
+    entities.forEach(entity -> entity.getNotes().forEach(note -> links.add(new JsonObject()
+      .put(NOTE_ID, note.getId())
+      .put(TYPE, entity.getLink().getType())
+      .put(ID, entity.getLink().getId())
+      .put(STATUS, note.getStatus().value()))));
+    return links.encode();
+  }
 
-    Promise<UpdateResult> promise = Promise.promise();
-    postgresClient.execute(connection, query, parameters, promise);
+  private List<EntityNoteLinksResult> mapEntityResults(List<EntityNoteLinksPut> entities, ResultSet changes) {
+    Map<Pair<String, String>, Integer> assigned = new HashMap<>();
+    Map<Pair<String, String>, Integer> unassigned = new HashMap<>();
+    changes.getRows().forEach(row -> {
+      Pair<String, String> entity = Pair.of(row.getString(TYPE), row.getString(ID));
+      int count = row.getLong(COUNT).intValue();
+      if (NoteLinkPut.Status.ASSIGNED.value().equals(row.getString(STATUS))) {
+        assigned.put(entity, count);
+      } else {
+        unassigned.put(entity, count);
+      }
+    });
 
-    return promise.future().compose(o -> deleteNotesWithoutLinks(notesIds, postgresClient, connection, tenantId))
-      .map(result -> null);
+    return entities.stream()
+      .map(entity -> {
+        Pair<String, String> key = Pair.of(entity.getLink().getType(), entity.getLink().getId());
+        return new EntityNoteLinksResult()
+          .withLink(entity.getLink())
+          .withAssigned(assigned.getOrDefault(key, 0))
+          .withUnassigned(unassigned.getOrDefault(key, 0));
+      })
+      .collect(Collectors.toList());
   }
 
-  private Future<Void> deleteNotesWithoutLinks(List<String> notesIds, PostgresClient postgresClient,
-                                               AsyncResult<SQLConnection> connection, String tenantId) {
-    if (notesIds.isEmpty()) {
-      return succeededFuture(null);
-    }
+  private List<EntityNoteCount> mapEntityCounts(List<LinkedEntity> entities, ResultSet counts) {
+    Map<Triple<String, String, String>, List<NoteTypeCount>> typeCounts = new HashMap<>();
+    counts.getRows().forEach(row -> {
+      String typeId = String.valueOf(row.getValue(TYPE_ID));
+      NoteTypeCount typeCount = new NoteTypeCount().withCount(row.getInteger(COUNT));
+      if (!NO_NOTE_TYPE_ID.equals(typeId)) {
+        typeCount
+          .withTypeId(typeId)
+          .withType(row.getString(TYPE_NAME));
+      }
+      typeCounts.computeIfAbsent(Triple.of(row.getString(DOMAIN), row.getString(TYPE), row.getString(ID)),
+        key -> new ArrayList<>()).add(typeCount);
+    });
 
-    String placeholders = createIdPlaceholders(notesIds.size());
-    String query = String.format(DELETE_NOTES_WITHOUT_LINKS, getNoteTableName(tenantId), placeholders);
-    JsonArray parameters = DbUtils.createParams(notesIds);
+    return entities.stream()
+      .map(entity -> {
+        List<NoteTypeCount> entityTypeCounts = typeCounts.getOrDefault(
+          Triple.of(entity.getDomain(), entity.getType(), entity.getId()), new ArrayList<>());
+        return new EntityNoteCount()
+          .withEntity(entity)
+          .withCount(entityTypeCounts.stream().mapToInt(NoteTypeCount::getCount).sum())
+          .withNoteTypes(entityTypeCounts);
+      })
+      .collect(Collectors.toList());
+  }
 
-    Promise<UpdateResult> promise = Promise.promise();
-    postgresClient.execute(connection, query, parameters, promise);
+  /**
+   * Runs the update and repeats it after a growing delay if it fails because of a deadlock or a serialization failure.
+   * Update fails with {@link ConcurrentUpdateException} when all retries are used
+   */
+  private <T> Future<T> withRetries(Supplier<Future<T>> update, String tenantId, int retry) {
+    return update.get()
+      .recover(e -> {
+        if (!isConcurrentUpdateFailure(e)) {
+          return failedFuture(e);
+        }
+        if (retry >= updateRetries) {
+          linkUpdateMetrics.recordFailedRetries(tenantId);
+          return failedFuture(new ConcurrentUpdateException("Notes are updated concurrently, please try again later", e));
+        }
+        linkUpdateMetrics.recordRetry(tenantId);
+        logger.warn("Note links update is retried after a concurrent update failure: " + e.getMessage());
+        Promise<Void> delay = Promise.promise();
+        vertx.setTimer(updateRetryDelay * (retry + 1), timerId -> delay.complete());
+        return delay.future().compose(o -> withRetries(update, tenantId, retry + 1));
+      });
+  }
 
-    return promise.future().map(result -> null);
+  private long getLockWait(ResultSet resultSet) {
+    return resultSet.getRows().get(0).getLong(LOCK_WAIT_COLUMN);
   }
 
-  private NoteCollection mapResultToNoteCollection(ResultSet results) {
-    List<Note> notes = new ArrayList<>();
-    ObjectMapper objectMapper = new ObjectMapper();
-    NoteCollection noteCollection = new NoteCollection();
-    results.getRows().forEach(object -> {
-      try {
-        notes.add(objectMapper.readValue(object.getString("jsonb"), Note.class));
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
-      }
-      noteCollection.setNotes(notes);
-    });
-    return noteCollection;
+  private boolean isConcurrentUpdateFailure(Throwable e) {
+    if (!excTranslator.acceptable(e)) {
+      return false;
+    }
+    String sqlState = excTranslator.translate(e).getSqlState();
+    return DEADLOCK_DETECTED.equals(sqlState) || SERIALIZATION_FAILURE.equals(sqlState);
   }
 
   /**
@@ -228,10 +569,6 @@ public class NoteLinksRepositoryImpl implements NoteLinksRepository {
     return promise.future();
   }
 
-  private Link toLink(EntityLink link) {
-    return new Link().withType(link.getType()).withId(link.getId());
-  }
-
   private Integer mapCount(ResultSet resultSet) {
     return resultSet.getRows().get(0).getInteger("count");
   }
@@ -247,28 +584,22 @@ public class NoteLinksRepositoryImpl implements NoteLinksRepository {
     return PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_TYPE_TABLE;
   }
 
-  private String createIdPlaceholders(int amountOfIds) {
-    return StringUtils.join(Collections.nCopies(amountOfIds, "?"), ", ");
+  private String getNoteLinkCountTableName(String tenantId) {
+    return PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_LINK_COUNT_TABLE;
   }
 
-  private JsonArray createAssignParameters(List<String> notesIds, Link link) {
-    String jsonLink = Json.encode(link);
-    JsonArray parameters = new JsonArray();
-    parameters
-      .add(jsonLink)
-      .add(jsonLink);
-    notesIds.forEach(parameters::add);
-    return parameters;
+  private String getNoteLinkTableName(String tenantId) {
+    return PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_LINK_TABLE;
   }
 
-  private JsonArray createUnAssignParameters(List<String> notesIds, Link link) {
-    String jsonLink = Json.encode(link);
-    JsonArray parameters = new JsonArray();
-    parameters
-      .add(jsonLink);
-    notesIds.forEach(parameters::add);
-    parameters.add(jsonLink);
-    return parameters;
+  /**
+   * Creates text of postgres array from the values, so the whole list is passed as one parameter
+   * and the text of the statement doesn't depend on the size of the list
+   */
+  private String createArrayParameter(List<String> values) {
+    return values.stream()
+      .map(value -> ARRAY_ELEMENT_QUOTE + value.replace("\\", "\\\\").replace("\"", "\\\"") + ARRAY_ELEMENT_QUOTE)
+      .collect(Collectors.joining(",", "{", "}"));
   }
 
   private void addLimitOffset(JsonArray parameters, StringBuilder query, RowPortion rowPortion) {
@@ -278,53 +609,110 @@ public class NoteLinksRepositoryImpl implements NoteLinksRepository {
       .add(rowPortion.getOffset());
   }
 
-  private void addSelectClause(JsonArray parameters, StringBuilder query, String domain, String title, String tenantId) {
-    query.append(String.format(SELECT_NOTES_BY_DOMAIN_AND_TITLE, getNoteTableName(tenantId), getNoteTypeTableName(tenantId)));
+  private void addSelectClause(JsonArray parameters, StringBuilder query, String domain, String title, boolean countTotal,
+                               String tenantId) {
+    query.append(String.format(SELECT_NOTES_BY_DOMAIN, countTotal ? TOTAL_COUNT_COLUMN : "",
+      getNoteTableName(tenantId)));
     parameters
-      .add(domain)
-      .add(getTitleRegexp(title));
+      .add(domain);
+    addWhereHasLinksClause(query);
+    addWhereTitleClause(parameters, query, title);
   }
 
   private void addSelectCountClause(JsonArray parameters, StringBuilder query, String domain, String title, String tenantId) {
-    query.append(String.format(COUNT_NOTES_BY_DOMAIN_AND_TITLE, getNoteTableName(tenantId), getNoteTypeTableName(tenantId)));
+    query.append(String.format(COUNT_NOTES_BY_DOMAIN, getNoteTableName(tenantId)));
+    parameters
+      .add(domain);
+    addWhereHasLinksClause(query);
+    addWhereTitleClause(parameters, query, title);
+  }
+
+  private void addWhereHasLinksClause(StringBuilder query) {
+    if (deferredOrphansDeletion) {
+      query.append(WHERE_CLAUSE_HAS_LINKS);
+    }
+  }
+
+  private void addWhereTitleClause(JsonArray parameters, StringBuilder query, String title) {
+    if (StringUtils.isEmpty(title)) {
+      return;
+    }
+    query.append(WHERE_CLAUSE_BY_TITLE);
     parameters
-      .add(domain)
       .add(getTitleRegexp(title));
   }
 
-  private void addOrderByClause(JsonArray parameters, StringBuilder query, Order order, OrderBy orderBy, String jsonLink) {
-    if (orderBy == OrderBy.STATUS) {
-      query.append(String.format(ORDER_BY_STATUS_CLAUSE, order.toString()));
-      parameters.add(jsonLink);
-    } else if (orderBy == OrderBy.LINKSNUMBER) {
-      query.append(String.format(ORDER_BY_LINKS_NUMBER, order.toString()));
-    } else {
-      query.append(String.format(ORDER_BY_TITLE_CLAUSE, order.toString()));
+  private void addOrderByClause(StringBuilder query, Order order, OrderBy orderBy) {
+    query.append(String.format(ORDER_BY_CLAUSE, getSortExpression(orderBy), order.toString()));
+  }
+
+  private void addCursorClause(JsonArray parameters, StringBuilder query, PageCursor cursor) {
+    if (cursor == null) {
+      return;
+    }
+    OrderBy orderBy = cursor.getOrderBy();
+    String comparison = cursor.getOrder() == Order.ASC ? ">" : "<";
+    query.append(String.format(AFTER_CURSOR_CONDITION, getSortExpression(orderBy), comparison));
+    parameters
+      .add(orderBy == OrderBy.LINKSNUMBER ? Integer.valueOf(cursor.getKey()) : cursor.getKey())
+      .add(cursor.getId());
+  }
+
+  private String getSortExpression(OrderBy orderBy) {
+    return orderBy == OrderBy.LINKSNUMBER ? LINKS_NUMBER_EXPRESSION : TITLE_EXPRESSION;
+  }
+
+  /**
+   * Creates cursor that points to the last note of the page, returns null if there are no more notes
+   */
+  private String createNextCursor(RawNoteCollection notes, EntityLink link, OrderBy orderBy, Order order,
+                                  boolean hasMore) {
+    if (!hasMore || notes.size() == 0) {
+      return null;
     }
+    JsonObject lastNote = new JsonObject(notes.getLastNote());
+    return new PageCursor(orderBy, order, getSortKey(lastNote, link, orderBy), lastNote.getString(ID)).encode();
   }
 
-  private void addWhereClause(JsonArray parameters, StringBuilder query, Status status, String jsonLink) {
+  private String getSortKey(JsonObject note, EntityLink link, OrderBy orderBy) {
+    JsonArray links = note.getJsonArray(LINKS, new JsonArray());
+    switch (orderBy) {
+      case STATUS:
+        boolean assigned = links.stream()
+          .map(JsonObject.class::cast)
+          .anyMatch(noteLink -> link.getType().equals(noteLink.getString(TYPE)) && link.getId().equals(noteLink.getString(ID)));
+        return assigned ? Status.ASSIGNED.name() : Status.UNASSIGNED.name();
+      case LINKSNUMBER:
+        return String.valueOf(links.size());
+      default:
+        return note.getString(TITLE);
+    }
+  }
+
+  private void addWhereClause(JsonArray parameters, StringBuilder query, Status status, EntityLink link, String tenantId) {
     switch (status) {
       case ASSIGNED:
-        query.append("AND " + HAS_LINK_CONDITION);
-        parameters.add(jsonLink);
+        query.append("AND ").append(String.format(HAS_LINK_CONDITION, getNoteLinkTableName(tenantId)));
+        addLinkParameters(parameters, link);
         break;
       case UNASSIGNED:
-        query.append("AND NOT " + HAS_LINK_CONDITION);
-        parameters.add(jsonLink);
+        query.append("AND NOT ").append(String.format(HAS_LINK_CONDITION, getNoteLinkTableName(tenantId)));
+        addLinkParameters(parameters, link);
         break;
       case ALL: // do nothing
     }
   }
 
+  private void addLinkParameters(JsonArray parameters, EntityLink link) {
+    parameters
+      .add(link.getType())
+      .add(link.getId());
+  }
+
   private String getTitleRegexp(String title) {
-    if (StringUtils.isEmpty(title)) {
-      return ANY_STRING_PATTERN;
-    } else {
-      String regex = escapeRegex(title)
-        .replace(ESCAPED_ANY_STRING_WILDCARD, ".*");
-      return String.format(WORD_PATTERN, regex);
-    }
+    String regex = escapeRegex(title)
+      .replace(ESCAPED_ANY_STRING_WILDCARD, ".*");
+    return String.format(WORD_PATTERN, regex);
   }
 
   private String escapeRegex(String str) {
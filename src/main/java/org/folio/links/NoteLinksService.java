@@ -7,17 +7,28 @@ import io.vertx.core.Future;
 import org.folio.model.EntityLink;
 import org.folio.model.Order;
 import org.folio.model.OrderBy;
+import org.folio.model.PageCursor;
+import org.folio.model.RawNoteCollection;
 import org.folio.model.RowPortion;
 import org.folio.model.Status;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.Link;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteCounts;
+import org.folio.rest.jaxrs.model.NoteCountsPost;
+import org.folio.rest.jaxrs.model.NoteLinksBatchPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchResult;
 import org.folio.rest.jaxrs.model.NoteLinksPut;
 
 public interface NoteLinksService {
 
   Future<Void> updateNoteLinks(NoteLinksPut entity, Link link, String tenantId);
 
-  Future<NoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
+  Future<NoteLinksBatchResult> updateNoteLinks(NoteLinksBatchPut entity, String tenantId);
+
+  Future<NoteCounts> countNotes(NoteCountsPost entity, String tenantId);
+
+  Future<RawNoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes,
                                                               Status status, OrderBy orderBy, Order order,
-                                                              RowPortion rowPortion, String tenantId);
+                                                              RowPortion rowPortion, PageCursor cursor,
+                                                              TotalRecords totalRecords, String tenantId);
 }
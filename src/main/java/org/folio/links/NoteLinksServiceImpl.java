@@ -1,21 +1,33 @@
 package org.folio.links;
 
+import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+
 import java.util.List;
 import java.util.stream.Collectors;
 
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
-import org.apache.commons.lang3.mutable.MutableObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.folio.model.EntityLink;
 import org.folio.model.Order;
 import org.folio.model.OrderBy;
+import org.folio.model.PageCursor;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.RowCount;
 import org.folio.model.RowPortion;
 import org.folio.model.Status;
+import org.folio.model.TotalRecords;
+import org.folio.rest.exceptions.InvalidCursorException;
+import org.folio.rest.jaxrs.model.EntityNoteLinksResult;
 import org.folio.rest.jaxrs.model.Link;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteCounts;
+import org.folio.rest.jaxrs.model.NoteCountsPost;
 import org.folio.rest.jaxrs.model.NoteLinkPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchResult;
 import org.folio.rest.jaxrs.model.NoteLinksPut;
 
 @Component
@@ -33,23 +45,85 @@ public class NoteLinksServiceImpl implements NoteLinksService {
   }
 
   @Override
-  public Future<NoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes, Status status,
-                                                                     OrderBy orderBy, Order order, RowPortion rowPortion, String tenantId) {
-    MutableObject<Integer> mutableTotalRecords = new MutableObject<>();
+  public Future<NoteLinksBatchResult> updateNoteLinks(NoteLinksBatchPut entity, String tenantId) {
+    if (entity.getEntities().stream().allMatch(entityLinks -> entityLinks.getNotes().isEmpty())) {
+      List<EntityNoteLinksResult> unchanged = entity.getEntities().stream()
+        .map(entityLinks -> new EntityNoteLinksResult().withLink(entityLinks.getLink()).withAssigned(0).withUnassigned(0))
+        .collect(Collectors.toList());
+      return succeededFuture(new NoteLinksBatchResult().withEntities(unchanged));
+    }
+    return noteLinksRepository.updateAll(entity.getEntities(), tenantId)
+      .map(results -> new NoteLinksBatchResult().withEntities(results));
+  }
 
+  @Override
+  public Future<NoteCounts> countNotes(NoteCountsPost entity, String tenantId) {
+    if (entity.getEntities().isEmpty()) {
+      return succeededFuture(new NoteCounts());
+    }
+    return noteLinksRepository.countNotesByEntities(entity.getEntities(), tenantId)
+      .map(counts -> {
+        if (!Boolean.TRUE.equals(entity.getByNoteType())) {
+          counts.forEach(count -> count.setNoteTypes(null));
+        }
+        return new NoteCounts().withEntities(counts);
+      });
+  }
+
+  @Override
+  public Future<RawNoteCollection> findNotesByTitleAndNoteTypeAndStatus(EntityLink link, String title, List<String> noteTypes, Status status,
+                                                                     OrderBy orderBy, Order order, RowPortion rowPortion,
+                                                                     PageCursor cursor, TotalRecords totalRecords, String tenantId) {
+    if (cursor != null && (cursor.getOrderBy() != orderBy || cursor.getOrder() != order)) {
+      return failedFuture(new InvalidCursorException("Cursor doesn't match orderBy and order parameters"));
+    }
     String trimmedTitle = title != null ? title.trim() : "";
-    return noteLinksRepository.countNotesByTitleAndNoteTypeAndStatus(link, trimmedTitle, noteTypes, status, tenantId)
-      .compose(count -> {
-        mutableTotalRecords.setValue(count);
-        return noteLinksRepository.findNotesByTitleAndNoteTypeAndStatus(link, trimmedTitle, noteTypes, status, orderBy, order, rowPortion,
-          tenantId);
-      })
-      .map(notes -> {
-        notes.setTotalRecords(mutableTotalRecords.getValue());
-        return notes;
+    // offset is not applicable to the page that starts after the cursor
+    RowPortion portion = cursor != null ? new RowPortion(0, rowPortion.getLimit()) : rowPortion;
+
+    // total count is returned with the first page only, pages that start after a cursor are not counted
+    if (cursor != null || totalRecords == TotalRecords.NONE) {
+      return noteLinksRepository.findNotesByTitleAndNoteTypeAndStatus(link, trimmedTitle, noteTypes, status, orderBy, order,
+        portion, cursor, false, tenantId);
+    } else if (totalRecords == TotalRecords.ESTIMATED) {
+      return findNotesWithEstimatedCount(link, trimmedTitle, noteTypes, status, orderBy, order, portion, tenantId);
+    }
+    return findNotesWithExactCount(link, trimmedTitle, noteTypes, status, orderBy, order, portion, tenantId);
+  }
+
+  /**
+   * Page and total count are returned by one query, total count is queried separately only if the page is empty
+   * because offset is beyond the last matching note
+   */
+  private Future<RawNoteCollection> findNotesWithExactCount(EntityLink link, String title, List<String> noteTypes, Status status,
+                                                         OrderBy orderBy, Order order, RowPortion rowPortion, String tenantId) {
+    return noteLinksRepository.findNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, status, orderBy, order, rowPortion,
+      null, true, tenantId)
+      .compose(notes -> {
+        if (notes.getTotalRecords() != null) {
+          return succeededFuture(notes);
+        } else if (rowPortion.getOffset() == 0) {
+          return succeededFuture(notes.withTotalRecords(0));
+        }
+        return noteLinksRepository.countNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, status, tenantId)
+          .map(notes::withTotalRecords);
       });
   }
 
+  private Future<RawNoteCollection> findNotesWithEstimatedCount(EntityLink link, String title, List<String> noteTypes,
+                                                             Status status, OrderBy orderBy, Order order,
+                                                             RowPortion rowPortion, String tenantId) {
+    Future<RawNoteCollection> notes = noteLinksRepository.findNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, status,
+      orderBy, order, rowPortion, null, false, tenantId);
+    Future<RowCount> count = noteLinksRepository.estimateNotesByTitleAndNoteTypeAndStatus(link, title, noteTypes, status,
+      tenantId);
+
+    return CompositeFuture.all(notes, count)
+      .map(o -> notes.result()
+        .withTotalRecords(count.result().getCount())
+        .withTotalRecordsMode(count.result().getMode()));
+  }
+
   private List<String> getNoteIdsByStatus(NoteLinksPut entity, NoteLinkPut.Status status) {
     return entity.getNotes().stream()
       .filter(note -> status.equals(note.getStatus()))
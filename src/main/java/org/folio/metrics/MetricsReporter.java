@@ -0,0 +1,40 @@
+package org.folio.metrics;
+
+import java.util.List;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically writes all {@link ReportedMetrics} of the module to the log
+ */
+@Component
+public class MetricsReporter {
+
+  private final Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private List<ReportedMetrics> metrics;
+  @Value("${note.metrics.report.interval}")
+  private long reportInterval;
+
+  /**
+   * Starts periodic reporting, does nothing if the interval is not positive
+   */
+  public void start() {
+    if (reportInterval <= 0) {
+      return;
+    }
+    vertx.setPeriodic(reportInterval, timerId -> report());
+  }
+
+  void report() {
+    metrics.forEach(reported -> reported.report().forEach(logger::info));
+  }
+}
@@ -0,0 +1,14 @@
+package org.folio.metrics;
+
+import java.util.List;
+
+/**
+ * Metrics that are written to the log by {@link MetricsReporter}
+ */
+public interface ReportedMetrics {
+
+  /**
+   * Returns current values of the metrics as log lines
+   */
+  List<String> report();
+}
@@ -0,0 +1,57 @@
+package org.folio.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import lombok.Value;
+
+import org.folio.rest.exceptions.InvalidCursorException;
+
+/**
+ * Position of a change in the change log: id of the transaction that made the change and sequence number of the change.
+ * Next changes start right after this position.
+ */
+@Value
+public class ChangeCursor {
+
+  /**
+   * Position before the first change
+   */
+  public static final ChangeCursor START = new ChangeCursor(0, 0);
+
+  private static final String TXID = "txid";
+  private static final String SEQ = "seq";
+
+  private long txid;
+  private long seq;
+
+  /**
+   * Returns true if this position is after the other one
+   */
+  public boolean isAfter(ChangeCursor other) {
+    return txid > other.txid || (txid == other.txid && seq > other.seq);
+  }
+
+  public String encode() {
+    JsonObject cursor = new JsonObject()
+      .put(TXID, txid)
+      .put(SEQ, seq);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.encode().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes cursor created by {@link #encode()}.
+   *
+   * @throws InvalidCursorException if value is not a valid cursor
+   */
+  public static ChangeCursor decode(String value) {
+    try {
+      JsonObject cursor = new JsonObject(new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8));
+      return new ChangeCursor(cursor.getLong(TXID), cursor.getLong(SEQ));
+    } catch (IllegalArgumentException | DecodeException | ClassCastException | NullPointerException e) {
+      throw new InvalidCursorException("Cursor is incorrect", e);
+    }
+  }
+}
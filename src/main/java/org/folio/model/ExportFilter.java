@@ -0,0 +1,15 @@
+package org.folio.model;
+
+import lombok.Value;
+
+/**
+ * Filter of exported notes, every field is optional.
+ * Notes are exported in the order of ids, afterId is id of the last note of the previous page.
+ */
+@Value
+public class ExportFilter {
+
+  private String domain;
+  private String updatedSince;
+  private String afterId;
+}
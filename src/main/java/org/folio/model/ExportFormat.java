@@ -0,0 +1,39 @@
+package org.folio.model;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+import org.apache.commons.lang3.EnumUtils;
+
+public enum ExportFormat {
+
+  NDJSON("ndjson", "application/x-ndjson"), CSV("csv", "text/csv");
+
+  private String value;
+  private String contentType;
+
+  ExportFormat(String value, String contentType) {
+    this.value = value;
+    this.contentType = contentType;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+
+  public static boolean contains(String value) {
+    return EnumUtils.isValidEnum(ExportFormat.class, defaultString(value).toUpperCase());
+  }
+
+  public static ExportFormat enumOf(String value) {
+    return valueOf(defaultString(value).toUpperCase());
+  }
+}
@@ -0,0 +1,87 @@
+package org.folio.model;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Page of exported notes as text in NDJSON or CSV format. In NDJSON format json text of every note
+ * is appended as it is, in CSV format the first line is the header and links of a note are written as json text.
+ */
+public class NoteExport {
+
+  private static final String[] CSV_COLUMNS = {"id", "typeId", "type", "domain", "title", "content", "links",
+    "createdDate", "createdByUserId", "updatedDate", "updatedByUserId"};
+  private static final String LINE_SEPARATOR = "\n";
+
+  private final ExportFormat format;
+  private final StringBuilder body = new StringBuilder();
+  private int size;
+  private String lastId;
+
+  public NoteExport(ExportFormat format) {
+    this.format = format;
+    if (format == ExportFormat.CSV) {
+      appendCsvLine(CSV_COLUMNS);
+    }
+  }
+
+  public NoteExport addNote(String id, String note) {
+    if (format == ExportFormat.CSV) {
+      JsonObject json = new JsonObject(note);
+      JsonObject metadata = json.getJsonObject("metadata", new JsonObject());
+      JsonArray links = json.getJsonArray("links", new JsonArray());
+      appendCsvLine(new String[] {json.getString("id"), json.getString("typeId"), json.getString("type"),
+        json.getString("domain"), json.getString("title"), json.getString("content"), links.encode(),
+        metadata.getString("createdDate"), metadata.getString("createdByUserId"),
+        metadata.getString("updatedDate"), metadata.getString("updatedByUserId")});
+    } else {
+      body.append(note).append(LINE_SEPARATOR);
+    }
+    lastId = id;
+    size++;
+    return this;
+  }
+
+  public ExportFormat getFormat() {
+    return format;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns id of the last added note or null if the page is empty
+   */
+  public String getLastId() {
+    return lastId;
+  }
+
+  public String encode() {
+    return body.toString();
+  }
+
+  private void appendCsvLine(String[] values) {
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        body.append(',');
+      }
+      appendCsvValue(values[i]);
+    }
+    body.append(LINE_SEPARATOR);
+  }
+
+  /**
+   * Value is quoted if it contains a separator, a quote or a line break, quotes inside of the value are doubled
+   */
+  private void appendCsvValue(String value) {
+    if (value == null) {
+      return;
+    }
+    if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+      body.append('"').append(value.replace("\"", "\"\"")).append('"');
+    } else {
+      body.append(value);
+    }
+  }
+}
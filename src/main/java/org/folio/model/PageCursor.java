@@ -0,0 +1,52 @@
+package org.folio.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import lombok.Value;
+
+import org.folio.rest.exceptions.InvalidCursorException;
+
+/**
+ * Position of the last note of a page: value of the sort key and id of the note.
+ * Next page starts right after this position.
+ */
+@Value
+public class PageCursor {
+
+  private static final String ORDER_BY = "orderBy";
+  private static final String ORDER = "order";
+  private static final String KEY = "key";
+  private static final String ID = "id";
+
+  private OrderBy orderBy;
+  private Order order;
+  private String key;
+  private String id;
+
+  public String encode() {
+    JsonObject cursor = new JsonObject()
+      .put(ORDER_BY, orderBy.getValue())
+      .put(ORDER, order.getValue())
+      .put(KEY, key)
+      .put(ID, id);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.encode().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes cursor created by {@link #encode()}.
+   *
+   * @throws InvalidCursorException if value is not a valid cursor
+   */
+  public static PageCursor decode(String value) {
+    try {
+      JsonObject cursor = new JsonObject(new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8));
+      return new PageCursor(OrderBy.enumOf(cursor.getString(ORDER_BY)), Order.enumOf(cursor.getString(ORDER)),
+        cursor.getString(KEY), cursor.getString(ID));
+    } catch (IllegalArgumentException | DecodeException | ClassCastException e) {
+      throw new InvalidCursorException("Cursor is incorrect", e);
+    }
+  }
+}
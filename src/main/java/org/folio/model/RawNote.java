@@ -0,0 +1,14 @@
+package org.folio.model;
+
+import lombok.Value;
+
+/**
+ * Note kept as json text built by the database, together with md5 hash of the text
+ * that is used as the entity tag of the note
+ */
+@Value
+public class RawNote {
+
+  private String json;
+  private String hash;
+}
@@ -0,0 +1,89 @@
+package org.folio.model;
+
+import io.vertx.core.json.Json;
+
+/**
+ * Collection of notes that keeps every note as json text. Notes are appended to the response body
+ * as they are read from the database and are never mapped to objects.
+ */
+public class RawNoteCollection {
+
+  private static final String NOTES_START = "{\"notes\":[";
+
+  private final StringBuilder body = new StringBuilder(NOTES_START);
+  private int size;
+  private String lastNote;
+  private Integer totalRecords;
+  private TotalRecords totalRecordsMode;
+  private String nextCursor;
+
+  public RawNoteCollection addNote(String note) {
+    if (size > 0) {
+      body.append(',');
+    }
+    body.append(note);
+    lastNote = note;
+    size++;
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns json text of the last added note or null if the collection is empty
+   */
+  public String getLastNote() {
+    return lastNote;
+  }
+
+  public Integer getTotalRecords() {
+    return totalRecords;
+  }
+
+  public RawNoteCollection withTotalRecords(Integer totalRecords) {
+    this.totalRecords = totalRecords;
+    return this;
+  }
+
+  /**
+   * Returns mode in which totalRecords was calculated, exact or estimated, or null if the mode is not stated
+   */
+  public TotalRecords getTotalRecordsMode() {
+    return totalRecordsMode;
+  }
+
+  public RawNoteCollection withTotalRecordsMode(TotalRecords totalRecordsMode) {
+    this.totalRecordsMode = totalRecordsMode;
+    return this;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public RawNoteCollection withNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+    return this;
+  }
+
+  /**
+   * Returns json text of the collection in the format of noteCollection schema
+   */
+  public String encode() {
+    StringBuilder json = new StringBuilder(body.length() + 64)
+      .append(body)
+      .append(']');
+    if (totalRecords != null) {
+      json.append(",\"totalRecords\":").append(totalRecords);
+    }
+    if (totalRecordsMode != null) {
+      json.append(",\"totalRecordsMode\":").append(Json.encode(totalRecordsMode.getValue()));
+    }
+    if (nextCursor != null) {
+      json.append(",\"nextCursor\":").append(Json.encode(nextCursor));
+    }
+    return json.append('}').toString();
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.model;
+
+import lombok.Value;
+
+/**
+ * Number of rows matching a query and the mode it was calculated in, either exact or estimated
+ */
+@Value
+public class RowCount {
+
+  private int count;
+  private TotalRecords mode;
+}
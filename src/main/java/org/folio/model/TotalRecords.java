@@ -0,0 +1,33 @@
+package org.folio.model;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+import org.apache.commons.lang3.EnumUtils;
+
+public enum TotalRecords {
+
+  EXACT("exact"), ESTIMATED("estimated"), NONE("none");
+
+  private String value;
+
+  TotalRecords(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+
+  public static boolean contains(String value) {
+    return EnumUtils.isValidEnum(TotalRecords.class, defaultString(value).toUpperCase());
+  }
+
+  public static TotalRecords enumOf(String value) {
+    return valueOf(defaultString(value).toUpperCase());
+  }
+}
@@ -0,0 +1,183 @@
+package org.folio.note;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import io.vertx.core.json.JsonArray;
+import org.z3950.zing.cql.CQLAndNode;
+import org.z3950.zing.cql.CQLNode;
+import org.z3950.zing.cql.CQLParseException;
+import org.z3950.zing.cql.CQLParser;
+import org.z3950.zing.cql.CQLSortNode;
+import org.z3950.zing.cql.CQLTermNode;
+import org.z3950.zing.cql.Modifier;
+import org.z3950.zing.cql.ModifierSet;
+
+/**
+ * SQL conditions for the most common shapes of CQL queries of notes: linkIds==X, domain==Y and linkIds==X
+ * and typeId=Z, optionally sorted by title or metadata dates. Conditions are written against columns
+ * of note_view that are served by indexes of note_data. Terms are matched as whole values, so only terms
+ * without masking characters are recognized. CQL2PgJSON runs "=" as a word match, e.g. linkIds=583 finds
+ * a note linked to 583-2594, so link ids and domain are recognized only with "==". A type id is a single
+ * value of a fixed format, the word match of a whole uuid is the same as equality, so typeId accepts both.
+ * Like CQL2PgJSON, link ids and domain are compared lower-cased and unaccented, expression indexes of note_data
+ * are built on the same normalized values. Any other query is left to CQL2PgJSON.
+ */
+final class FastNoteQuery {
+
+  private static final String LINK_IDS = "linkIds";
+  private static final String DOMAIN = "domain";
+  private static final String TYPE_ID = "typeId";
+  private static final Map<String, String> CONDITIONS = new HashMap<>();
+  private static final Map<String, String> SORT_KEYS = new HashMap<>();
+  private static final String SORT_ASCENDING = "sort.ascending";
+  private static final String SORT_DESCENDING = "sort.descending";
+  private static final Pattern PLAIN_TERM = Pattern.compile("^[^*?^\\\\\\s\"]+$");
+  private static final Pattern UUID_PATTERN =
+    Pattern.compile("^[a-fA-F0-9]{8}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{12}$");
+
+  static {
+    CONDITIONS.put(LINK_IDS, "note_normalized(note_view.link_ids) @> ARRAY[lower(f_unaccent(?))]::text[]");
+    CONDITIONS.put(DOMAIN, "lower(f_unaccent(note_view.domain)) = lower(f_unaccent(?))");
+    CONDITIONS.put(TYPE_ID, "note_view.type_id = ?::uuid");
+    SORT_KEYS.put("title", "lower(f_unaccent(note_view.jsonb->>'title'))");
+    SORT_KEYS.put("metadata.createdDate", "note_view.jsonb->'metadata'->>'createdDate'");
+    SORT_KEYS.put("metadata.updatedDate", "note_view.jsonb->'metadata'->>'updatedDate'");
+  }
+
+  private final String shape;
+  private final String whereClause;
+  private final String orderByClause;
+  private final JsonArray parameters;
+
+  private FastNoteQuery(String shape, String whereClause, String orderByClause, JsonArray parameters) {
+    this.shape = shape;
+    this.whereClause = whereClause;
+    this.orderByClause = orderByClause;
+    this.parameters = parameters;
+  }
+
+  /**
+   * Returns conditions of the query if the query has one of recognized shapes
+   */
+  static Optional<FastNoteQuery> recognize(String cqlQuery) {
+    if (cqlQuery == null) {
+      return Optional.empty();
+    }
+    CQLNode node;
+    try {
+      node = new CQLParser().parse(cqlQuery);
+    } catch (CQLParseException | IOException e) {
+      return Optional.empty();
+    }
+
+    List<ModifierSet> sortIndexes = new ArrayList<>();
+    if (node instanceof CQLSortNode) {
+      sortIndexes = ((CQLSortNode) node).getSortIndexes();
+      node = ((CQLSortNode) node).getSubtree();
+    }
+
+    // terms are kept in the order of index names, so that the shape doesn't depend on the order of terms
+    Map<String, String> terms = new TreeMap<>();
+    if (!collectTerms(node, terms) || !isRecognizedShape(terms)) {
+      return Optional.empty();
+    }
+    String orderByClause = toOrderByClause(sortIndexes);
+    if (orderByClause == null) {
+      return Optional.empty();
+    }
+
+    StringJoiner where = new StringJoiner(" AND ", "WHERE ", " ");
+    JsonArray parameters = new JsonArray();
+    terms.forEach((index, term) -> {
+      where.add(CONDITIONS.get(index));
+      parameters.add(term);
+    });
+    String shape = String.join(" and ", terms.keySet()) + (sortIndexes.isEmpty() ? "" : " sortby");
+    return Optional.of(new FastNoteQuery(shape, where.toString(), orderByClause, parameters));
+  }
+
+  /**
+   * Name of the shape of the query, e.g. "domain and linkIds sortby"
+   */
+  String getShape() {
+    return shape;
+  }
+
+  String getWhereClause() {
+    return whereClause;
+  }
+
+  /**
+   * Returns ORDER BY clause or empty string if the query is not sorted
+   */
+  String getOrderByClause() {
+    return orderByClause;
+  }
+
+  JsonArray getParameters() {
+    return parameters.copy();
+  }
+
+  private static boolean collectTerms(CQLNode node, Map<String, String> terms) {
+    if (node instanceof CQLAndNode) {
+      CQLAndNode and = (CQLAndNode) node;
+      return and.getModifiers().isEmpty()
+        && collectTerms(and.getLeftOperand(), terms)
+        && collectTerms(and.getRightOperand(), terms);
+    } else if (node instanceof CQLTermNode) {
+      CQLTermNode term = (CQLTermNode) node;
+      String relation = term.getRelation().getBase();
+      boolean typeId = TYPE_ID.equals(term.getIndex());
+      boolean plain = CONDITIONS.containsKey(term.getIndex())
+        && ("==".equals(relation) || (typeId && "=".equals(relation)))
+        && term.getRelation().getModifiers().isEmpty()
+        && PLAIN_TERM.matcher(term.getTerm()).matches();
+      if (!plain || (typeId && !UUID_PATTERN.matcher(term.getTerm()).matches())) {
+        return false;
+      }
+      return terms.put(term.getIndex(), term.getTerm()) == null;
+    }
+    return false;
+  }
+
+  private static boolean isRecognizedShape(Map<String, String> terms) {
+    if (terms.size() == 1) {
+      return terms.containsKey(LINK_IDS) || terms.containsKey(TYPE_ID);
+    }
+    return terms.size() == 2 && terms.containsKey(LINK_IDS) && terms.containsKey(DOMAIN);
+  }
+
+  /**
+   * Returns null if some of sort indexes or their modifiers are not supported
+   */
+  private static String toOrderByClause(List<ModifierSet> sortIndexes) {
+    if (sortIndexes.isEmpty()) {
+      return "";
+    }
+    StringJoiner orderBy = new StringJoiner(", ", "ORDER BY ", ", note_view.id ");
+    for (ModifierSet sortIndex : sortIndexes) {
+      String key = SORT_KEYS.get(sortIndex.getBase());
+      if (key == null) {
+        return null;
+      }
+      String direction = "ASC";
+      for (Modifier modifier : sortIndex.getModifiers()) {
+        if (SORT_DESCENDING.equals(modifier.getType())) {
+          direction = "DESC";
+        } else if (!SORT_ASCENDING.equals(modifier.getType())) {
+          return null;
+        }
+      }
+      orderBy.add(key + " " + direction);
+    }
+    return orderBy.toString();
+  }
+}
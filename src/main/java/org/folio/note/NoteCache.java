@@ -0,0 +1,187 @@
+package org.folio.note;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.folio.model.RawNote;
+
+/**
+ * Cache of notes by id kept as json text together with their hashes,
+ * every tenant has its own partition of limited size.
+ * Least recently read notes are evicted first, notes are also evicted when they expire.
+ * Every invalidation increases version of the tenant partition and is stamped with it. A note that was read
+ * from the database is put to the cache only if neither the note nor the whole partition was invalidated
+ * since the read started, so a slow read can't put a note that was changed while it was read, and reads
+ * of other notes are not affected. Stamps of invalidated notes are kept for as many notes as the partition holds,
+ * when a stamp is forgotten, every read that started before it is treated as invalidated.
+ */
+@Component
+public class NoteCache {
+
+  private final Map<String, TenantNotes> tenants = new ConcurrentHashMap<>();
+
+  @Value("${note.cache.max.size}")
+  private int maxSize;
+  @Value("${note.cache.ttl}")
+  private long ttl;
+
+  /**
+   * Caching is disabled if maximal size of the cache is 0
+   */
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  /**
+   * Returns the note or null if the note is not cached or is expired
+   */
+  public RawNote get(String tenantId, String id) {
+    TenantNotes notes = tenants.get(tenantId);
+    return notes != null ? notes.get(id) : null;
+  }
+
+  /**
+   * Returns current version of the tenant partition, it should be taken before a note is read from the database
+   */
+  public long getVersion(String tenantId) {
+    return isEnabled() ? getTenantNotes(tenantId).getVersion() : 0;
+  }
+
+  /**
+   * Puts the note to the cache unless the note or the tenant partition was invalidated after the version was taken
+   */
+  public void put(String tenantId, String id, RawNote note, long version) {
+    if (isEnabled()) {
+      getTenantNotes(tenantId).put(id, note, version);
+    }
+  }
+
+  public void invalidate(String tenantId, String id) {
+    TenantNotes notes = tenants.get(tenantId);
+    if (notes != null) {
+      notes.invalidate(id);
+    }
+  }
+
+  public void invalidate(String tenantId, Collection<String> ids) {
+    TenantNotes notes = tenants.get(tenantId);
+    if (notes != null) {
+      ids.forEach(notes::invalidate);
+    }
+  }
+
+  public void invalidateAll(String tenantId) {
+    TenantNotes notes = tenants.get(tenantId);
+    if (notes != null) {
+      notes.invalidateAll();
+    }
+  }
+
+  /**
+   * Removes partition of the tenant, it is created again on the next read of a note of the tenant
+   */
+  public void removeTenant(String tenantId) {
+    TenantNotes notes = tenants.remove(tenantId);
+    if (notes != null) {
+      notes.invalidateAll();
+    }
+  }
+
+  /**
+   * Returns tenants that have partitions in the cache
+   */
+  public Set<String> getTenants() {
+    return tenants.keySet();
+  }
+
+  private TenantNotes getTenantNotes(String tenantId) {
+    return tenants.computeIfAbsent(tenantId, id -> new TenantNotes(maxSize, ttl));
+  }
+
+  private static final class CachedNote {
+
+    private final RawNote note;
+    private final long expiresAt;
+
+    private CachedNote(RawNote note, long expiresAt) {
+      this.note = note;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private static final class TenantNotes {
+
+    private final long ttl;
+    private final LinkedHashMap<String, CachedNote> notes;
+    private final LinkedHashMap<String, Long> invalidatedNotes;
+    private long version;
+    private long invalidatedAllAt;
+    private long forgottenUpTo;
+
+    private TenantNotes(int maxSize, long ttl) {
+      this.ttl = ttl;
+      this.notes = new LinkedHashMap<String, CachedNote>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedNote> eldest) {
+          return size() > maxSize;
+        }
+      };
+      this.invalidatedNotes = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+          if (size() > maxSize) {
+            forgottenUpTo = eldest.getValue();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    private synchronized RawNote get(String id) {
+      CachedNote note = notes.get(id);
+      if (note == null) {
+        return null;
+      } else if (note.expiresAt < System.currentTimeMillis()) {
+        notes.remove(id);
+        return null;
+      }
+      return note.note;
+    }
+
+    private synchronized long getVersion() {
+      return version;
+    }
+
+    private synchronized void put(String id, RawNote note, long readVersion) {
+      Long invalidatedAt = invalidatedNotes.get(id);
+      // a version greater than the current one was taken from a removed partition of the tenant
+      boolean invalidated = readVersion > version || readVersion < invalidatedAllAt || readVersion < forgottenUpTo
+        || (invalidatedAt != null && readVersion < invalidatedAt);
+      if (!invalidated) {
+        notes.put(id, new CachedNote(note, System.currentTimeMillis() + ttl));
+      }
+    }
+
+    private synchronized void invalidate(String id) {
+      version++;
+      notes.remove(id);
+      // re-inserted, so stamps are forgotten in the order of invalidation
+      invalidatedNotes.remove(id);
+      invalidatedNotes.put(id, version);
+    }
+
+    private synchronized void invalidateAll() {
+      version++;
+      invalidatedAllAt = version;
+      notes.clear();
+      invalidatedNotes.clear();
+    }
+  }
+}
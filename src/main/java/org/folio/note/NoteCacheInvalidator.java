@@ -0,0 +1,130 @@
+package org.folio.note;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.folio.model.ChangeCursor;
+import org.folio.rest.exceptions.ExpiredCursorException;
+import org.folio.rest.jaxrs.model.NoteChange;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
+
+/**
+ * Periodically reads changes made by other instances of the module from the change log and evicts changed notes
+ * from {@link NoteCache}. Every tenant that has notes in the cache is tracked from the last change that was finished
+ * when tracking started. If a tenant has more new changes than one read returns, its notes are evicted all at once.
+ * Change of a note type evicts every note of the tenant, because notes contain names of their types.
+ * <p>
+ * Changes are read only up to the oldest transaction that is still running, changes of later transactions
+ * may be not visible yet. A long transaction of any instance holds back reading of newer changes, so a note
+ * changed by another instance can be returned from the cache until it expires: the ttl of the cache is the bound
+ * of staleness, a note changed by this instance is evicted at once.
+ */
+@Component
+public class NoteCacheInvalidator {
+
+  private final Logger logger = LoggerFactory.getLogger(NoteCacheInvalidator.class);
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private NoteCache noteCache;
+  @Autowired
+  private NoteChangeRepository changeRepository;
+  @Value("${note.cache.invalidation.poll.interval}")
+  private long pollInterval;
+  @Value("${note.cache.invalidation.poll.limit}")
+  private int pollLimit;
+
+  private final Map<String, ChangeCursor> cursors = new ConcurrentHashMap<>();
+  private boolean polling;
+
+  /**
+   * Starts periodic reading of changes, does nothing if caching of notes is disabled
+   */
+  public void start() {
+    if (!noteCache.isEnabled()) {
+      return;
+    }
+    vertx.setPeriodic(pollInterval, timerId -> {
+      if (polling) {
+        return;
+      }
+      polling = true;
+      poll().setHandler(result -> {
+        polling = false;
+        if (result.failed()) {
+          logger.warn("Failed to read changes of notes", result.cause());
+        }
+      });
+    });
+  }
+
+  Future<Void> poll() {
+    cursors.keySet().retainAll(noteCache.getTenants());
+    return pollTenants(new ArrayList<>(noteCache.getTenants()).iterator());
+  }
+
+  private Future<Void> pollTenants(Iterator<String> tenants) {
+    if (!tenants.hasNext()) {
+      return Future.succeededFuture();
+    }
+    String tenantId = tenants.next();
+    return pollTenant(tenantId)
+      .otherwise(e -> {
+        // tenant is tracked from the beginning when its notes are cached again
+        logger.warn("Failed to read changes of notes of tenant " + tenantId, e);
+        noteCache.removeTenant(tenantId);
+        cursors.remove(tenantId);
+        return null;
+      })
+      .compose(o -> pollTenants(tenants));
+  }
+
+  private Future<Void> pollTenant(String tenantId) {
+    ChangeCursor cursor = cursors.get(tenantId);
+    if (cursor == null) {
+      // notes that were cached before tracking started could miss earlier changes
+      return startTracking(tenantId);
+    }
+    return changeRepository.findChanges(cursor, pollLimit, tenantId)
+      .compose(changes -> {
+        if (changes.getChanges().size() >= pollLimit) {
+          return startTracking(tenantId);
+        }
+        evictChangedNotes(tenantId, changes);
+        cursors.put(tenantId, ChangeCursor.decode(changes.getNextCursor()));
+        return Future.<Void>succeededFuture();
+      })
+      // changes after the cursor are deleted, so every note of the tenant is evicted
+      .recover(e -> e instanceof ExpiredCursorException ? startTracking(tenantId) : Future.failedFuture(e));
+  }
+
+  private Future<Void> startTracking(String tenantId) {
+    return changeRepository.findLastCursor(tenantId)
+      .map(cursor -> {
+        noteCache.invalidateAll(tenantId);
+        cursors.put(tenantId, cursor);
+        return null;
+      });
+  }
+
+  private void evictChangedNotes(String tenantId, NoteChangeCollection changes) {
+    for (NoteChange change : changes.getChanges()) {
+      if (change.getEntityType() == NoteChange.EntityType.NOTE_TYPE) {
+        noteCache.invalidateAll(tenantId);
+        return;
+      }
+      noteCache.invalidate(tenantId, change.getId());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.folio.note;
+
+import java.util.Iterator;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.sql.ResultSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.folio.rest.persist.PostgresClient;
+import org.folio.tenant.TenantRegistry;
+
+/**
+ * Periodically deletes changes of notes and note types that are older than the retention period.
+ * Changes are deleted tenant by tenant in batches, a tenant is pruned by one instance of the module at a time.
+ * Position of the last deleted change is kept in the same transaction, so that a reader of changes
+ * can find out that changes after its cursor are deleted.
+ */
+@Component
+public class NoteChangeLogPruner {
+
+  private static final String NOTE_CHANGE_LOG_TABLE = "note_change_log";
+  private static final String NOTE_CHANGE_LOG_PRUNED_TABLE = "note_change_log_pruned";
+  private static final String PRUNE_LOCK_PREFIX = "note change log prune ";
+  private static final String DELETE_OLD_CHANGES =
+    "WITH prune AS (SELECT pg_try_advisory_xact_lock(hashtext(?)) AS locked), " +
+    "deleted AS (DELETE FROM %1$s AS log " +
+      "WHERE (SELECT locked FROM prune) AND " +
+      "log.seq IN (SELECT old.seq FROM %1$s AS old " +
+      "WHERE old.changed_date < now() - make_interval(days => ?) " +
+      "ORDER BY old.changed_date LIMIT ?) " +
+      "RETURNING log.txid, log.seq), " +
+    "last_deleted AS (INSERT INTO %2$s AS pruned (txid, seq) " +
+      "SELECT deleted.txid, deleted.seq FROM deleted ORDER BY deleted.txid DESC, deleted.seq DESC LIMIT 1 " +
+      "ON CONFLICT (id) DO UPDATE SET txid = EXCLUDED.txid, seq = EXCLUDED.seq " +
+      "WHERE (EXCLUDED.txid, EXCLUDED.seq) > (pruned.txid, pruned.seq)) " +
+    "SELECT count(*) FROM deleted";
+
+  private final Logger logger = LoggerFactory.getLogger(NoteChangeLogPruner.class);
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private TenantRegistry tenantRegistry;
+  @Value("${note.changes.retention.days}")
+  private int retentionDays;
+  @Value("${note.changes.prune.interval}")
+  private long pruneInterval;
+  @Value("${note.changes.prune.batch.size}")
+  private int batchSize;
+
+  private boolean pruning;
+
+  /**
+   * Starts periodic deletion of old changes, does nothing if the retention period is not positive
+   */
+  public void start() {
+    if (retentionDays <= 0) {
+      return;
+    }
+    vertx.setPeriodic(pruneInterval, timerId -> {
+      if (pruning) {
+        return;
+      }
+      pruning = true;
+      prune().setHandler(result -> {
+        pruning = false;
+        if (result.failed()) {
+          logger.warn("Failed to delete old changes of notes", result.cause());
+        }
+      });
+    });
+  }
+
+  Future<Void> prune() {
+    return tenantRegistry.findTenants().compose(tenants -> pruneTenants(tenants.iterator()));
+  }
+
+  private Future<Void> pruneTenants(Iterator<String> tenants) {
+    if (!tenants.hasNext()) {
+      return Future.succeededFuture();
+    }
+    String tenantId = tenants.next();
+    return pruneTenant(tenantId, 0)
+      .map(deleted -> {
+        if (deleted > 0) {
+          logger.info("Deleted " + deleted + " old changes of notes of tenant " + tenantId);
+        }
+        return null;
+      })
+      .otherwise(e -> {
+        logger.warn("Failed to delete old changes of notes of tenant " + tenantId, e);
+        return null;
+      })
+      .compose(o -> pruneTenants(tenants));
+  }
+
+  private Future<Integer> pruneTenant(String tenantId, int deletedBefore) {
+    Promise<ResultSet> promise = Promise.promise();
+    String schema = PostgresClient.convertToPsqlStandard(tenantId);
+    JsonArray parameters = new JsonArray()
+      .add(PRUNE_LOCK_PREFIX + tenantId)
+      .add(retentionDays)
+      .add(batchSize);
+    PostgresClient.getInstance(vertx, tenantId).select(String.format(DELETE_OLD_CHANGES,
+      schema + "." + NOTE_CHANGE_LOG_TABLE, schema + "." + NOTE_CHANGE_LOG_PRUNED_TABLE), parameters, promise);
+
+    return promise.future().compose(result -> {
+      int deletedNow = result.getResults().get(0).getInteger(0);
+      int deleted = deletedBefore + deletedNow;
+      // full batch means that there can be more changes to delete
+      return deletedNow < batchSize ? Future.succeededFuture(deleted) : pruneTenant(tenantId, deleted);
+    });
+  }
+}
@@ -0,0 +1,24 @@
+package org.folio.note;
+
+import io.vertx.core.Future;
+
+import org.folio.model.ChangeCursor;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
+
+public interface NoteChangeRepository {
+
+  /**
+   * Returns changes of notes and note types made after the change the cursor points to.
+   * Only changes of finished transactions are returned, nextCursor of the result points to the last returned change
+   * or is equal to the given cursor if there are no new changes.
+   * Fails with {@link org.folio.rest.exceptions.ExpiredCursorException} if changes after the cursor
+   * are deleted after the retention period, {@link ChangeCursor#START} never expires.
+   */
+  Future<NoteChangeCollection> findChanges(ChangeCursor since, int limit, String tenantId);
+
+  /**
+   * Returns cursor that points to the last change of finished transactions, or {@link ChangeCursor#START}
+   * if there are no changes. Changes returned after this cursor are the changes that are not visible yet.
+   */
+  Future<ChangeCursor> findLastCursor(String tenantId);
+}
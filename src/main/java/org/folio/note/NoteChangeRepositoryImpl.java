@@ -0,0 +1,147 @@
+package org.folio.note;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.folio.model.ChangeCursor;
+import org.folio.rest.exceptions.ExpiredCursorException;
+import org.folio.rest.jaxrs.model.Link;
+import org.folio.rest.jaxrs.model.NoteChange;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
+import org.folio.rest.persist.PostgresClient;
+
+@Component
+public class NoteChangeRepositoryImpl implements NoteChangeRepository {
+
+  private static final String NOTE_CHANGE_LOG_TABLE = "note_change_log";
+  private static final String NOTE_CHANGE_LOG_PRUNED_TABLE = "note_change_log_pruned";
+  /**
+   * Changes are ordered by transaction id. Transaction ids are not assigned in the order of commits,
+   * so changes of transactions that are not finished yet are not selected, otherwise a reader could skip
+   * a change of a transaction with smaller id that is committed after the page is read
+   */
+  private static final String SELECT_CHANGES =
+    "SELECT log.txid, log.seq, log.entity_type, log.entity_id, log.operation, log.links, " +
+      "to_json(log.changed_date)#>>'{}' " +
+      "FROM %s AS log " +
+      "WHERE (log.txid, log.seq) > (?, ?) AND log.txid < txid_snapshot_xmin(txid_current_snapshot()) " +
+      "ORDER BY log.txid, log.seq " +
+      "LIMIT ?";
+  private static final String SELECT_LAST_CHANGE =
+    "SELECT log.txid, log.seq " +
+      "FROM %s AS log " +
+      "WHERE log.txid < txid_snapshot_xmin(txid_current_snapshot()) " +
+      "ORDER BY log.txid DESC, log.seq DESC " +
+      "LIMIT 1";
+  private static final String SELECT_LAST_DELETED_CHANGE =
+    "SELECT pruned.txid, pruned.seq FROM %s AS pruned";
+  private static final int TXID_COLUMN_INDEX = 0;
+  private static final int SEQ_COLUMN_INDEX = 1;
+  private static final int ENTITY_TYPE_COLUMN_INDEX = 2;
+  private static final int ENTITY_ID_COLUMN_INDEX = 3;
+  private static final int OPERATION_COLUMN_INDEX = 4;
+  private static final int LINKS_COLUMN_INDEX = 5;
+  private static final int CHANGED_DATE_COLUMN_INDEX = 6;
+
+  @Autowired
+  private Vertx vertx;
+
+  /**
+   * Position of the last deleted change is checked after changes are read, a change deleted before the read
+   * is committed together with the position, so it can't be skipped unnoticed
+   */
+  @Override
+  public Future<NoteChangeCollection> findChanges(ChangeCursor since, int limit, String tenantId) {
+    JsonArray parameters = new JsonArray()
+      .add(since.getTxid())
+      .add(since.getSeq())
+      .add(limit);
+    Promise<ResultSet> promise = Promise.promise();
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, tenantId);
+    postgresClient.select(String.format(SELECT_CHANGES, getChangeLogTableName(tenantId)), parameters, promise);
+
+    return promise.future()
+      .compose(resultSet -> checkNotExpired(since, postgresClient, tenantId)
+        .map(o -> mapChanges(resultSet.getResults(), since)));
+  }
+
+  private Future<Void> checkNotExpired(ChangeCursor since, PostgresClient postgresClient, String tenantId) {
+    if (ChangeCursor.START.equals(since)) {
+      return Future.succeededFuture();
+    }
+    Promise<ResultSet> promise = Promise.promise();
+    postgresClient.select(String.format(SELECT_LAST_DELETED_CHANGE,
+      PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_CHANGE_LOG_PRUNED_TABLE), promise);
+
+    return promise.future().compose(resultSet -> {
+      if (resultSet.getNumRows() > 0) {
+        JsonArray row = resultSet.getResults().get(0);
+        ChangeCursor lastDeleted = new ChangeCursor(row.getLong(TXID_COLUMN_INDEX), row.getLong(SEQ_COLUMN_INDEX));
+        if (lastDeleted.isAfter(since)) {
+          return Future.failedFuture(new ExpiredCursorException(
+            "Changes after the cursor are deleted, changes must be read again from the beginning"));
+        }
+      }
+      return Future.succeededFuture();
+    });
+  }
+
+  @Override
+  public Future<ChangeCursor> findLastCursor(String tenantId) {
+    Promise<ResultSet> promise = Promise.promise();
+    PostgresClient.getInstance(vertx, tenantId)
+      .select(String.format(SELECT_LAST_CHANGE, getChangeLogTableName(tenantId)), promise);
+
+    return promise.future().map(resultSet -> {
+      if (resultSet.getNumRows() == 0) {
+        return ChangeCursor.START;
+      }
+      JsonArray row = resultSet.getResults().get(0);
+      return new ChangeCursor(row.getLong(TXID_COLUMN_INDEX), row.getLong(SEQ_COLUMN_INDEX));
+    });
+  }
+
+  private NoteChangeCollection mapChanges(List<JsonArray> rows, ChangeCursor since) {
+    List<NoteChange> changes = rows.stream()
+      .map(this::mapChange)
+      .collect(Collectors.toList());
+    ChangeCursor nextCursor = rows.isEmpty()
+      ? since
+      : new ChangeCursor(rows.get(rows.size() - 1).getLong(TXID_COLUMN_INDEX),
+          rows.get(rows.size() - 1).getLong(SEQ_COLUMN_INDEX));
+
+    return new NoteChangeCollection()
+      .withChanges(changes)
+      .withNextCursor(nextCursor.encode());
+  }
+
+  private NoteChange mapChange(JsonArray row) {
+    Object links = row.getValue(LINKS_COLUMN_INDEX);
+    return new NoteChange()
+      .withId(String.valueOf(row.getValue(ENTITY_ID_COLUMN_INDEX)))
+      .withEntityType(NoteChange.EntityType.fromValue(row.getString(ENTITY_TYPE_COLUMN_INDEX)))
+      .withOperation(NoteChange.Operation.fromValue(row.getString(OPERATION_COLUMN_INDEX)))
+      .withLinks(links != null ? mapLinks(links) : null)
+      .withChangedDate(Date.from(OffsetDateTime.parse(row.getString(CHANGED_DATE_COLUMN_INDEX)).toInstant()));
+  }
+
+  private List<Link> mapLinks(Object links) {
+    return Arrays.asList(Json.decodeValue(links.toString(), Link[].class));
+  }
+
+  private String getChangeLogTableName(String tenantId) {
+    return PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_CHANGE_LOG_TABLE;
+  }
+}
@@ -0,0 +1,32 @@
+package org.folio.note;
+
+import java.io.InputStream;
+
+import io.vertx.core.Future;
+
+import org.folio.common.OkapiParams;
+import org.folio.rest.jaxrs.model.NoteImportResult;
+
+/**
+ * Imports notes from a stream in NDJSON format that is received in chunks.
+ * Chunks of one import are identified by the same import id.
+ */
+public interface NoteImportService {
+
+  /**
+   * Adds next chunk of the stream to the import, the import is started by its first chunk.
+   * Complete lines of the chunk are saved in the background.
+   */
+  void addChunk(String importId, InputStream chunk, OkapiParams okapiParams);
+
+  /**
+   * Finishes the import after the last chunk of the stream is added
+   * and returns result of the import when every line is saved
+   */
+  Future<NoteImportResult> complete(String importId, OkapiParams okapiParams);
+
+  /**
+   * Drops the import when its stream is aborted, lines that are already saved are kept
+   */
+  void abort(String importId);
+}
@@ -0,0 +1,391 @@
+package org.folio.note;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.folio.common.OkapiParams;
+import org.folio.model.TotalRecords;
+import org.folio.okapi.common.XOkapiHeaders;
+import org.folio.rest.exceptions.ImportOverloadException;
+import org.folio.rest.exceptions.ImportTimeoutException;
+import org.folio.rest.jaxrs.model.Metadata;
+import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteImportError;
+import org.folio.rest.jaxrs.model.NoteImportResult;
+import org.folio.rest.jaxrs.model.NoteType;
+import org.folio.rest.jaxrs.model.UserDisplayInfo;
+import org.folio.type.NoteTypeRepository;
+import org.folio.userlookup.UserLookUpService;
+
+/**
+ * Lines of an import are collected into batches as chunks of the stream arrive, only the incomplete last line
+ * and batches that are not saved yet are kept in memory. Batches are saved one after another, notes of a batch
+ * are parsed and sanitized on a worker thread and are inserted with one statement.
+ * Note types and the user who imports notes are loaded once, when the import is started.
+ * <p>
+ * The request can't be paused, so when more batches than the limit wait to be saved the import is stopped:
+ * lines that arrive after that are dropped and the import fails. An import that receives no chunk during
+ * the idle timeout, e.g. because its request is aborted, is dropped too. Ids of dropped imports are kept
+ * for a while, so that chunks which arrive after the drop don't start a new import in the middle of the stream
+ * and completion of the import fails instead of returning result of an empty import.
+ */
+@Component
+public class NoteImportServiceImpl implements NoteImportService {
+
+  private static final Logger logger = LoggerFactory.getLogger(NoteImportServiceImpl.class);
+
+  private static final String ALL_RECORDS_QUERY = "cql.allRecords=1";
+  private static final byte LINE_SEPARATOR = '\n';
+  private static final int READ_BUFFER_SIZE = 8192;
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private NoteRepository repository;
+  @Autowired
+  private NoteTypeRepository noteTypeRepository;
+  @Autowired
+  private UserLookUpService userLookUpService;
+  @Value("${note.import.batch.size}")
+  private int batchSize;
+  @Value("${note.import.errors.limit}")
+  private int errorsLimit;
+  @Value("${note.import.pending.batches.limit}")
+  private int pendingBatchesLimit;
+  @Value("${note.import.idle.timeout}")
+  private long idleTimeout;
+  @Value("${note.import.dropped.retention}")
+  private long droppedRetention;
+
+  private final Map<String, NoteImport> imports = new ConcurrentHashMap<>();
+  private final Map<String, DroppedImport> droppedImports = new ConcurrentHashMap<>();
+
+  @Override
+  public void addChunk(String importId, InputStream chunk, OkapiParams okapiParams) {
+    DroppedImport dropped = droppedImports.get(importId);
+    if (dropped != null) {
+      keepDropped(importId, dropped.failure);
+      return;
+    }
+    NoteImport noteImport = imports.computeIfAbsent(importId, id -> startImport(id, okapiParams));
+    resetIdleTimer(noteImport);
+    if (noteImport.stopped) {
+      return;
+    }
+    try {
+      byte[] buffer = new byte[READ_BUFFER_SIZE];
+      int read;
+      while ((read = chunk.read(buffer)) != -1) {
+        int lineStart = 0;
+        for (int i = 0; i < read; i++) {
+          if (buffer[i] == LINE_SEPARATOR) {
+            noteImport.incompleteLine.write(buffer, lineStart, i - lineStart);
+            addLine(noteImport);
+            if (noteImport.stopped) {
+              return;
+            }
+            lineStart = i + 1;
+          }
+        }
+        noteImport.incompleteLine.write(buffer, lineStart, read - lineStart);
+      }
+    } catch (IOException e) {
+      logger.error("Failed to read import of notes " + importId, e);
+      noteImport.processing = noteImport.processing.compose(o -> Future.failedFuture(e));
+    }
+  }
+
+  @Override
+  public Future<NoteImportResult> complete(String importId, OkapiParams okapiParams) {
+    DroppedImport dropped = droppedImports.remove(importId);
+    if (dropped != null) {
+      vertx.cancelTimer(dropped.expirationTimerId);
+      return Future.failedFuture(dropped.failure);
+    }
+    NoteImport started = imports.remove(importId);
+    NoteImport noteImport = started != null ? started : startImport(importId, okapiParams);
+    vertx.cancelTimer(noteImport.idleTimerId);
+
+    addLine(noteImport);
+    saveBatch(noteImport);
+    return noteImport.processing.map(o -> {
+      logger.info("Import of notes {} is completed: {} lines read, {} notes imported, {} lines failed",
+        importId, noteImport.result.getTotalLines(), noteImport.result.getImported(), noteImport.result.getFailed());
+      return noteImport.result;
+    });
+  }
+
+  @Override
+  public void abort(String importId) {
+    NoteImport noteImport = imports.remove(importId);
+    if (noteImport != null) {
+      vertx.cancelTimer(noteImport.idleTimerId);
+      logger.warn("Import of notes {} is aborted after {} lines", importId, noteImport.lineNumber);
+    }
+  }
+
+  private void resetIdleTimer(NoteImport noteImport) {
+    vertx.cancelTimer(noteImport.idleTimerId);
+    noteImport.idleTimerId = vertx.setTimer(idleTimeout, id -> {
+      if (imports.remove(noteImport.importId, noteImport)) {
+        logger.warn("Import of notes {} is dropped, no chunk is received in {} ms", noteImport.importId, idleTimeout);
+        keepDropped(noteImport.importId, noteImport.stopped ? noteImport.stopCause : new ImportTimeoutException(
+          "Import is dropped after line " + noteImport.lineNumber + ": no part of the stream is received in "
+            + idleTimeout + " ms, lines before it may be imported"));
+      }
+    });
+  }
+
+  /**
+   * Keeps id of the dropped import until no chunk of it is received during the retention time
+   */
+  private void keepDropped(String importId, RuntimeException failure) {
+    long timerId = vertx.setTimer(droppedRetention, id -> droppedImports.remove(importId));
+    DroppedImport previous = droppedImports.put(importId, new DroppedImport(failure, timerId));
+    if (previous != null) {
+      vertx.cancelTimer(previous.expirationTimerId);
+    }
+  }
+
+  private NoteImport startImport(String importId, OkapiParams okapiParams) {
+    logger.info("Starting import of notes {}", importId);
+    CaseInsensitiveHeaders headers = new CaseInsensitiveHeaders();
+    headers.addAll(okapiParams.getHeadersAsMap());
+    String userId = headers.get(XOkapiHeaders.USER_ID);
+
+    Future<ImportContext> context = loadTypeIds(okapiParams.getTenant())
+      .compose(typeIds -> userLookUpService.getUserInfo(okapiParams.getHeadersAsMap())
+        .map(user -> new ImportContext(typeIds, NoteServiceImpl.getUserDisplayInfo(user),
+          NoteServiceImpl.createMetadata(userId, user))));
+    return new NoteImport(importId, okapiParams.getTenant(), context);
+  }
+
+  private Future<Set<String>> loadTypeIds(String tenantId) {
+    return noteTypeRepository.findByQuery(ALL_RECORDS_QUERY, 0, Integer.MAX_VALUE, TotalRecords.NONE, tenantId)
+      .map(noteTypes -> noteTypes.getNoteTypes().stream().map(NoteType::getId).collect(toSet()));
+  }
+
+  private void addLine(NoteImport noteImport) {
+    if (noteImport.stopped) {
+      return;
+    }
+    noteImport.lineNumber++;
+    String text = new String(noteImport.incompleteLine.toByteArray(), UTF_8).trim();
+    noteImport.incompleteLine.reset();
+    if (!text.isEmpty()) {
+      noteImport.batch.add(new ImportLine(noteImport.lineNumber, text));
+      if (noteImport.batch.size() < batchSize) {
+        return;
+      }
+      if (noteImport.pendingBatches < pendingBatchesLimit) {
+        saveBatch(noteImport);
+      } else {
+        stop(noteImport);
+      }
+    }
+  }
+
+  private void saveBatch(NoteImport noteImport) {
+    if (noteImport.batch.isEmpty()) {
+      return;
+    }
+    List<ImportLine> lines = noteImport.batch;
+    noteImport.batch = new ArrayList<>();
+    noteImport.pendingBatches++;
+    noteImport.processing = noteImport.processing.compose(context -> parseLines(lines, context)
+      .compose(o -> saveNotes(lines, noteImport.tenantId))
+      .map(o -> {
+        noteImport.pendingBatches--;
+        noteImport.addLines(lines, errorsLimit);
+        logger.info("Import of notes {}: {} lines read, {} notes imported, {} lines failed", noteImport.importId,
+          noteImport.result.getTotalLines(), noteImport.result.getImported(), noteImport.result.getFailed());
+        return context;
+      }));
+  }
+
+  private void stop(NoteImport noteImport) {
+    logger.warn("Import of notes {} is stopped at line {}, {} batches wait to be saved",
+      noteImport.importId, noteImport.lineNumber, noteImport.pendingBatches);
+    noteImport.stopped = true;
+    noteImport.batch = new ArrayList<>();
+    noteImport.incompleteLine.reset();
+    noteImport.stopCause = new ImportOverloadException("Import is stopped at line " + noteImport.lineNumber +
+      ": notes are received faster than they are saved, lines before it may be imported");
+    RuntimeException e = noteImport.stopCause;
+    noteImport.processing = noteImport.processing.compose(o -> Future.failedFuture(e));
+  }
+
+  private Future<Void> parseLines(List<ImportLine> lines, ImportContext context) {
+    Promise<Void> promise = Promise.promise();
+    vertx.executeBlocking(blockingPromise -> {
+      lines.forEach(line -> parseLine(line, context));
+      blockingPromise.complete();
+    }, false, promise);
+    return promise.future();
+  }
+
+  private void parseLine(ImportLine line, ImportContext context) {
+    Note note;
+    try {
+      note = Json.decodeValue(line.text, Note.class);
+    } catch (DecodeException e) {
+      line.error = "Line is not a valid note: " + e.getMessage();
+      return;
+    }
+
+    line.error = NoteValidator.validate(note, context.typeIds);
+    if (line.error == null) {
+      if (StringUtils.isBlank(note.getId())) {
+        note.setId(UUID.randomUUID().toString());
+      }
+      if (StringUtils.isNotBlank(note.getContent())) {
+        note.setContent(NoteServiceImpl.sanitizeHtml(note.getContent()));
+      }
+      note.setCreator(context.creator);
+      note.setMetadata(context.metadata);
+      line.note = note;
+    }
+  }
+
+  /**
+   * Saves valid notes of the lines, lines which notes are not saved get an error
+   */
+  private Future<Void> saveNotes(List<ImportLine> lines, String tenantId) {
+    Set<String> batchIds = new HashSet<>();
+    List<ImportLine> validLines = lines.stream()
+      .filter(line -> line.error == null)
+      .filter(line -> {
+        if (!batchIds.add(line.note.getId())) {
+          line.error = "Note with id " + line.note.getId() + " already exists";
+          return false;
+        }
+        return true;
+      })
+      .collect(toList());
+    if (validLines.isEmpty()) {
+      return Future.succeededFuture();
+    }
+
+    return repository.saveAll(validLines.stream().map(line -> line.note).collect(toList()), false, tenantId)
+      .otherwise(e -> {
+        logger.error("Failed to save notes", e);
+        validLines.forEach(line -> line.error = "Failed to save note: " + e.getMessage());
+        return Collections.emptySet();
+      })
+      .map(savedIds -> {
+        validLines.stream()
+          .filter(line -> line.error == null && !savedIds.contains(line.note.getId()))
+          .forEach(line -> line.error = "Note with id " + line.note.getId() + " already exists");
+        return null;
+      });
+  }
+
+  /**
+   * Note types and user that are loaded when an import is started and are shared by every note of the import
+   */
+  private static class ImportContext {
+
+    private final Set<String> typeIds;
+    private final UserDisplayInfo creator;
+    private final Metadata metadata;
+
+    private ImportContext(Set<String> typeIds, UserDisplayInfo creator, Metadata metadata) {
+      this.typeIds = typeIds;
+      this.creator = creator;
+      this.metadata = metadata;
+    }
+  }
+
+  private static class DroppedImport {
+
+    private final RuntimeException failure;
+    private final long expirationTimerId;
+
+    private DroppedImport(RuntimeException failure, long expirationTimerId) {
+      this.failure = failure;
+      this.expirationTimerId = expirationTimerId;
+    }
+  }
+
+  private static class ImportLine {
+
+    private final int number;
+    private final String text;
+    private Note note;
+    private String error;
+
+    private ImportLine(int number, String text) {
+      this.number = number;
+      this.text = text;
+    }
+  }
+
+  /**
+   * State of one import. It is changed only on the event loop, batches are saved
+   * in the order of lines, each one after the previous batch is saved.
+   */
+  private static class NoteImport {
+
+    private final String importId;
+    private final String tenantId;
+    private final ByteArrayOutputStream incompleteLine = new ByteArrayOutputStream();
+    private final NoteImportResult result = new NoteImportResult()
+      .withTotalLines(0)
+      .withImported(0)
+      .withFailed(0)
+      .withErrors(new ArrayList<>());
+    private List<ImportLine> batch = new ArrayList<>();
+    private int lineNumber;
+    private int pendingBatches;
+    private boolean stopped;
+    private RuntimeException stopCause;
+    private long idleTimerId = -1;
+    private Future<ImportContext> processing;
+
+    private NoteImport(String importId, String tenantId, Future<ImportContext> context) {
+      this.importId = importId;
+      this.tenantId = tenantId;
+      this.processing = context;
+    }
+
+    private void addLines(List<ImportLine> lines, int errorsLimit) {
+      for (ImportLine line : lines) {
+        result.setTotalLines(result.getTotalLines() + 1);
+        if (line.error == null) {
+          result.setImported(result.getImported() + 1);
+        } else {
+          result.setFailed(result.getFailed() + 1);
+          if (result.getErrors().size() < errorsLimit) {
+            result.getErrors().add(new NoteImportError().withLine(line.number).withMessage(line.error));
+          }
+        }
+      }
+    }
+  }
+}
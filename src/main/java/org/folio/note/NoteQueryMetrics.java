@@ -0,0 +1,52 @@
+package org.folio.note;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import org.folio.metrics.ReportedMetrics;
+
+/**
+ * Numbers of CQL queries of notes that were run through the fast path, per shape of the query,
+ * and through the general CQL translation
+ */
+@Component
+public class NoteQueryMetrics implements ReportedMetrics {
+
+  private final Map<String, AtomicLong> fastPathQueries = new ConcurrentHashMap<>();
+  private final AtomicLong generalPathQueries = new AtomicLong();
+
+  public void recordFastPath(String shape) {
+    fastPathQueries.computeIfAbsent(shape, key -> new AtomicLong()).incrementAndGet();
+  }
+
+  public void recordGeneralPath() {
+    generalPathQueries.incrementAndGet();
+  }
+
+  public long getFastPathQueries() {
+    return fastPathQueries.values().stream().mapToLong(AtomicLong::get).sum();
+  }
+
+  public long getFastPathQueries(String shape) {
+    AtomicLong queries = fastPathQueries.get(shape);
+    return queries != null ? queries.get() : 0;
+  }
+
+  public long getGeneralPathQueries() {
+    return generalPathQueries.get();
+  }
+
+  @Override
+  public List<String> report() {
+    List<String> lines = new ArrayList<>();
+    lines.add("CQL queries of notes: fastPath=" + getFastPathQueries() + ", generalPath=" + getGeneralPathQueries());
+    fastPathQueries.forEach((shape, queries) ->
+      lines.add("CQL queries of notes with fast path shape \"" + shape + "\": " + queries.get()));
+    return lines;
+  }
+}
@@ -1,21 +1,48 @@
 package org.folio.note;
 
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 import io.vertx.core.Future;
 
+import org.folio.model.ExportFilter;
+import org.folio.model.RawNote;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.Note;
-import org.folio.rest.jaxrs.model.NoteCollection;
 
 public interface NoteRepository {
-  Future<NoteCollection> findByQuery(String cqlQuery, int offset, int limit, String tenantId);
+  Future<RawNoteCollection> findByQuery(String cqlQuery, int offset, int limit, TotalRecords totalRecords,
+                                        String tenantId);
+
+  /**
+   * Reads at most limit notes that match the filter in the order of ids and passes id and json text
+   * of every note with its type name to noteHandler
+   */
+  Future<Void> readForExport(ExportFilter filter, int limit, String tenantId, BiConsumer<String, String> noteHandler);
 
   Future<Note> save(Note note, String tenantId);
 
+  /**
+   * Saves notes with one statement, notes with ids that already exist are skipped.
+   * Returns ids of inserted notes. If allOrNothing is set and some of notes are skipped,
+   * nothing is saved, so fewer ids than notes means that no note is saved.
+   */
+  Future<Set<String>> saveAll(List<Note> notes, boolean allOrNothing, String tenantId);
+
   /**
    * Returns note with given id.
    * If note with given id doesn't exist then returns failed Future with NotFoundException as a cause.
    */
-  Future<Note> findOne(String id, String tenantId);
+  Future<RawNote> findOne(String id, String tenantId);
+
+  /**
+   * Returns md5 hash of the note with given id, the same as hash of the note returned by {@link #findOne},
+   * without reading the note itself.
+   * If note with given id doesn't exist then returns failed Future with NotFoundException as a cause.
+   */
+  Future<String> findHash(String id, String tenantId);
 
   /**
    * Deletes note with given id.
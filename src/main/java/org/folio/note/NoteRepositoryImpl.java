@@ -1,47 +1,213 @@
 package org.folio.note;
 
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 import javax.ws.rs.NotFoundException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLConnection;
 import io.vertx.ext.sql.UpdateResult;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import org.folio.db.CqlQuery;
-import org.folio.model.NoteView;
+import org.folio.cql2pgjson.CQL2PgJSON;
+import org.folio.cql2pgjson.exception.FieldException;
+import org.folio.model.ExportFilter;
+import org.folio.model.RawNote;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.RowCount;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.Note;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.persist.Criteria.Limit;
+import org.folio.rest.persist.Criteria.Offset;
 import org.folio.rest.persist.PostgresClient;
-import org.folio.rest.persist.interfaces.Results;
+import org.folio.rest.persist.cql.CQLQueryValidationException;
+import org.folio.rest.persist.cql.CQLWrapper;
+import org.folio.util.DbCursorReader;
+import org.folio.util.DbRowCounter;
 
 @Component
 public class NoteRepositoryImpl implements NoteRepository {
 
   private static final String NOTE_VIEW = "note_view";
+  /**
+   * View of notes that hides notes left without links, used when deletion of such notes is deferred
+   */
+  private static final String LINKED_NOTE_VIEW = "linked_note_view";
   private static final String NOTE_TABLE = "note_data";
+  private static final String NOTE_TYPE_TABLE = "note_type";
+  private static final String ALL_RECORDS_QUERY = "cql.allRecords=1";
+  /**
+   * Builds note in the format of note schema, fields that are used only for search are removed
+   */
+  private static final String NOTE_JSON = "jsonb_strip_nulls(" + NOTE_VIEW + ".jsonb - 'linkTypes' - 'linkIds')";
+  private static final String SELECT_NOTES = "SELECT " + NOTE_JSON + "%s FROM %s AS " + NOTE_VIEW + " ";
+  private static final String TOTAL_COUNT_COLUMN = ", count(*) OVER()";
+  /**
+   * Hash is calculated from the text of the note in the database, so it is the same for the note and for its hash
+   * selected separately
+   */
+  private static final String NOTE_HASH = "md5((" + NOTE_JSON + ")::text)";
+  private static final String SELECT_NOTE_BY_ID = "SELECT " + NOTE_JSON + ", " + NOTE_HASH + " FROM %s AS " + NOTE_VIEW
+    + " WHERE " + NOTE_VIEW + ".id = ?::uuid";
+  private static final String SELECT_NOTE_HASH_BY_ID = "SELECT " + NOTE_HASH + " FROM %s AS " + NOTE_VIEW
+    + " WHERE " + NOTE_VIEW + ".id = ?::uuid";
+  /**
+   * Selects notes with names of their types, readonly fields that are computed for search are removed
+   */
+  private static final String SELECT_NOTES_FOR_EXPORT = "SELECT note_data.id, "
+    + "jsonb_strip_nulls((note_data.jsonb - 'type' - 'status') || jsonb_build_object('type', note_type.jsonb->'name')) "
+    + "FROM %s AS note_data LEFT JOIN %s AS note_type ON note_data.temporary_type_id = note_type.id ";
+  private static final String EXPORT_ORDER_AND_LIMIT = " ORDER BY note_data.id LIMIT ?";
+  /**
+   * Inserts every note of json array passed as a parameter
+   */
+  private static final String INSERT_NOTES = "INSERT INTO %s (id, jsonb) "
+    + "SELECT (note->>'id')::uuid, note FROM jsonb_array_elements(?::jsonb) AS note "
+    + "ON CONFLICT (id) DO NOTHING RETURNING id";
+  private static final String SELECT_NOTE_ROWS = "SELECT 1 FROM %s AS " + NOTE_VIEW + " %s";
+  private static final String LIMIT_OFFSET = "LIMIT ? OFFSET ?";
+  private static final int JSONB_COLUMN_INDEX = 0;
+  private static final int TOTAL_COUNT_COLUMN_INDEX = 1;
 
   private final Logger logger = LoggerFactory.getLogger(NoteRepositoryImpl.class);
 
   @Autowired
   private Vertx vertx;
+  @Autowired
+  private NoteQueryMetrics queryMetrics;
+  @Autowired
+  private NoteCache noteCache;
+  @Value("${note.orphans.deferred.deletion}")
+  private boolean deferredOrphansDeletion;
+  @Value("${note.total.records.estimate.threshold}")
+  private int estimateThreshold;
+  @Value("${note.read.fetch.size}")
+  private int fetchSize;
 
+  /**
+   * Notes are kept in the collection as json text.
+   * Exact total number of notes is selected together with the page, it is counted separately
+   * only if the page is empty because offset is beyond the last matching note. Estimated total number
+   * is requested from the query planner while the page is read. Pages larger than the fetch size are read
+   * through a database cursor, so rows of the page are held in memory only as notes of the collection.
+   * Queries of the most common shapes are run as SQL written against indexed columns of note_view,
+   * other queries are translated by CQL2PgJSON.
+   */
   @Override
-  public Future<NoteCollection> findByQuery(String cqlQuery, int offset, int limit, String tenantId) {
+  public Future<RawNoteCollection> findByQuery(String cqlQuery, int offset, int limit, TotalRecords totalRecords,
+                                               String tenantId) {
     logger.debug("Getting notes. new query:" + cqlQuery);
 
-    CqlQuery<NoteView> q = new CqlQuery<>(PostgresClient.getInstance(vertx, tenantId), NOTE_VIEW, NoteView.class);
+    boolean exactCount = totalRecords == TotalRecords.EXACT;
+    String selectNotes = String.format(SELECT_NOTES, exactCount ? TOTAL_COUNT_COLUMN : "", getNoteViewName(tenantId));
+    String query;
+    String countFilter;
+    JsonArray parameters;
+    Optional<FastNoteQuery> fastQuery = FastNoteQuery.recognize(cqlQuery);
+    if (fastQuery.isPresent()) {
+      queryMetrics.recordFastPath(fastQuery.get().getShape());
+      countFilter = fastQuery.get().getWhereClause();
+      query = selectNotes + countFilter
+        + fastQuery.get().getOrderByClause() + LIMIT_OFFSET;
+      parameters = fastQuery.get().getParameters().add(limit).add(offset);
+    } else {
+      queryMetrics.recordGeneralPath();
+      try {
+        CQL2PgJSON field = new CQL2PgJSON(NOTE_VIEW + ".jsonb");
+        String cql = cqlQuery != null ? cqlQuery : ALL_RECORDS_QUERY;
+        query = selectNotes + new CQLWrapper(field, cql)
+          .setLimit(new Limit(limit))
+          .setOffset(new Offset(offset))
+          .toString();
+        countFilter = new CQLWrapper(field, cql).toString();
+        parameters = new JsonArray();
+      } catch (FieldException | CQLQueryValidationException e) {
+        return Future.failedFuture(e);
+      }
+    }
 
-    return q.get(cqlQuery, offset, limit).map(this::mapNoteResults);
+    RawNoteCollection notes = new RawNoteCollection();
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, tenantId);
+    String rowsQuery = String.format(SELECT_NOTE_ROWS, getNoteViewName(tenantId), countFilter);
+    JsonArray countParameters = fastQuery.map(FastNoteQuery::getParameters).orElseGet(JsonArray::new);
+    Future<Void> read = DbCursorReader.read(postgresClient, query, parameters, limit, fetchSize, row -> {
+      if (exactCount && notes.size() == 0) {
+        notes.withTotalRecords(((Number) row.getValue(TOTAL_COUNT_COLUMN_INDEX)).intValue());
+      }
+      notes.addNote(String.valueOf(row.getValue(JSONB_COLUMN_INDEX)));
+    });
+
+    switch (totalRecords) {
+      case NONE:
+        return read.map(notes);
+      case ESTIMATED:
+        Future<RowCount> estimated = DbRowCounter.estimateAboveThreshold(postgresClient, rowsQuery, countParameters,
+          estimateThreshold);
+        return read.compose(o -> estimated)
+          .map(rowCount -> notes.withTotalRecords(rowCount.getCount()).withTotalRecordsMode(rowCount.getMode()));
+      default:
+        return read.compose(o -> {
+          notes.withTotalRecordsMode(TotalRecords.EXACT);
+          if (notes.size() > 0) {
+            return Future.succeededFuture(notes);
+          } else if (offset == 0) {
+            return Future.succeededFuture(notes.withTotalRecords(0));
+          }
+          return DbRowCounter.count(postgresClient, rowsQuery, countParameters).map(notes::withTotalRecords);
+        });
+    }
+  }
+
+  /**
+   * Notes are read in the order of ids, so every page is a range scan of the primary key
+   * that starts right after the last note of the previous page.
+   * Notes are passed to the handler batch by batch as they are fetched from the database cursor
+   */
+  @Override
+  public Future<Void> readForExport(ExportFilter filter, int limit, String tenantId,
+                                    BiConsumer<String, String> noteHandler) {
+    StringJoiner where = new StringJoiner(" AND ", "WHERE ", "").setEmptyValue("");
+    JsonArray parameters = new JsonArray();
+    if (filter.getAfterId() != null) {
+      where.add("note_data.id > ?::uuid");
+      parameters.add(filter.getAfterId());
+    }
+    if (filter.getDomain() != null) {
+      where.add("note_data.jsonb->>'domain' = ?");
+      parameters.add(filter.getDomain());
+    }
+    if (filter.getUpdatedSince() != null) {
+      where.add("(note_data.jsonb->'metadata'->>'updatedDate')::timestamptz >= ?::timestamptz");
+      parameters.add(filter.getUpdatedSince());
+    }
+    if (deferredOrphansDeletion) {
+      where.add("note_data.links_count > 0");
+    }
+    parameters.add(limit);
+
+    String schema = PostgresClient.convertToPsqlStandard(tenantId);
+    String query = String.format(SELECT_NOTES_FOR_EXPORT, schema + "." + NOTE_TABLE, schema + "." + NOTE_TYPE_TABLE)
+      + where + EXPORT_ORDER_AND_LIMIT;
+    return DbCursorReader.read(PostgresClient.getInstance(vertx, tenantId), query, parameters, limit, fetchSize,
+      row -> noteHandler.accept(String.valueOf(row.getValue(0)), String.valueOf(row.getValue(1))));
   }
 
   /**
@@ -61,27 +227,110 @@ public class NoteRepositoryImpl implements NoteRepository {
       .save(NOTE_TABLE, note.getId(), note, promise);
 
     return promise.future().map(noteId -> {
+      noteCache.invalidate(tenantId, noteId);
       note.setId(noteId);
       return note;
     });
   }
 
   /**
-   * Fetches a note record from the database
+   * Notes are passed to the statement as one json array. If allOrNothing is set, the statement is run
+   * in a transaction that is committed only if every note is inserted.
+   */
+  @Override
+  public Future<Set<String>> saveAll(List<Note> notes, boolean allOrNothing, String tenantId) {
+    StringBuilder json = new StringBuilder("[");
+    try {
+      for (Note note : notes) {
+        if (StringUtils.isBlank(note.getId())) {
+          note.setId(UUID.randomUUID().toString());
+        }
+        if (json.length() > 1) {
+          json.append(',');
+        }
+        json.append(PostgresClient.pojo2json(note));
+      }
+    } catch (JsonProcessingException e) {
+      return Future.failedFuture(e);
+    }
+    json.append(']');
+
+    PostgresClient postgresClient = PostgresClient.getInstance(vertx, tenantId);
+    String query = String.format(INSERT_NOTES, PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_TABLE);
+    JsonArray parameters = new JsonArray().add(json.toString());
+    if (!allOrNothing) {
+      Promise<ResultSet> promise = Promise.promise();
+      postgresClient.select(query, parameters, promise);
+      return promise.future().map(this::mapIds).map(ids -> invalidateCached(ids, tenantId));
+    }
+
+    MutableObject<AsyncResult<SQLConnection>> connection = new MutableObject<>();
+    MutableObject<Set<String>> ids = new MutableObject<>();
+    return startTransaction(postgresClient)
+      .compose(resultConnection -> {
+        connection.setValue(resultConnection);
+        Promise<ResultSet> promise = Promise.promise();
+        postgresClient.select(connection.getValue(), query, parameters, promise);
+        return promise.future();
+      })
+      .compose(resultSet -> {
+        ids.setValue(mapIds(resultSet));
+        return ids.getValue().size() == notes.size()
+          ? endTransaction(postgresClient, connection.getValue())
+          : rollbackTransaction(postgresClient, connection.getValue());
+      })
+      .map(o -> invalidateCached(ids.getValue(), tenantId))
+      .recover(e -> {
+        if (connection.getValue() != null && ids.getValue() == null) {
+          return rollbackTransaction(postgresClient, connection.getValue()).compose(o -> Future.failedFuture(e));
+        }
+        return Future.failedFuture(e);
+      });
+  }
+
+  /**
+   * Fetches a note record as json text built by the database. Notes are read through {@link NoteCache},
+   * missing notes are not cached.
    *
    * @param id id of note to get
    */
   @Override
-  public Future<Note> findOne(String id, String tenantId) {
-    Promise<NoteView> promise = Promise.promise();
+  public Future<RawNote> findOne(String id, String tenantId) {
+    RawNote cached = noteCache.get(tenantId, id);
+    if (cached != null) {
+      return Future.succeededFuture(cached);
+    }
+
+    long cacheVersion = noteCache.getVersion(tenantId);
+    return selectById(SELECT_NOTE_BY_ID, id, tenantId).map(row -> {
+      RawNote note = new RawNote(String.valueOf(row.getValue(0)), row.getString(1));
+      noteCache.put(tenantId, id, note, cacheVersion);
+      return note;
+    });
+  }
+
+  /**
+   * Hash of a cached note is taken from the cache, otherwise only the hash is selected
+   */
+  @Override
+  public Future<String> findHash(String id, String tenantId) {
+    RawNote cached = noteCache.get(tenantId, id);
+    if (cached != null) {
+      return Future.succeededFuture(cached.getHash());
+    }
+    return selectById(SELECT_NOTE_HASH_BY_ID, id, tenantId).map(row -> row.getString(0));
+  }
+
+  private Future<JsonArray> selectById(String query, String id, String tenantId) {
+    Promise<ResultSet> promise = Promise.promise();
     PostgresClient.getInstance(vertx, tenantId)
-      .getById(NOTE_VIEW, id, NoteView.class, promise);
+      .select(String.format(query, getNoteViewName(tenantId)), new JsonArray().add(id), promise);
 
-    return promise.future().map(noteView -> {
-      if(Objects.isNull(noteView)){
+    return promise.future().map(resultSet -> {
+      if (resultSet.getNumRows() == 0) {
         throw new NotFoundException("Note " + id + " not found");
       }
-      return mapNoteView(noteView);
+      return resultSet.getResults().get(0);
     });
   }
 
@@ -91,6 +340,7 @@ public class NoteRepositoryImpl implements NoteRepository {
     PostgresClient.getInstance(vertx, tenantId)
       .delete(NOTE_TABLE, id, promise);
     return promise.future().map(updateResult -> {
+      noteCache.invalidate(tenantId, id);
       if(updateResult.getUpdated() == 0){
         throw new NotFoundException("Note with id " + id + " doesn't exist");
       }
@@ -98,10 +348,13 @@ public class NoteRepositoryImpl implements NoteRepository {
     });
   }
 
+  /**
+   * Note without links is deleted, unless deletion of such notes is deferred to {@link OrphanNoteSweeper}
+   */
   @Override
   public Future<Void> update(String id, Note note, String tenantId) {
     Promise<UpdateResult> promise = Promise.promise();
-    if (note.getLinks().isEmpty()) {
+    if (note.getLinks().isEmpty() && !deferredOrphansDeletion) {
       PostgresClient.getInstance(vertx, tenantId)
         .delete(NOTE_TABLE, id, promise);
     } else {
@@ -111,6 +364,7 @@ public class NoteRepositoryImpl implements NoteRepository {
     return promise
       .future()
       .map(updateResult -> {
+        noteCache.invalidate(tenantId, id);
         if(updateResult.getUpdated() == 0){
           throw new NotFoundException("Note with id " + id + " doesn't exist");
         }
@@ -118,29 +372,36 @@ public class NoteRepositoryImpl implements NoteRepository {
       });
   }
 
-  private NoteCollection mapNoteResults(Results<NoteView> results) {
-    List<Note> notes = results.getResults().stream()
-      .map(this::mapNoteView)
-      .collect(Collectors.toList());
+  private Set<String> invalidateCached(Set<String> ids, String tenantId) {
+    noteCache.invalidate(tenantId, ids);
+    return ids;
+  }
+
+  private Set<String> mapIds(ResultSet resultSet) {
+    Set<String> ids = new HashSet<>();
+    resultSet.getResults().forEach(row -> ids.add(String.valueOf(row.getValue(0))));
+    return ids;
+  }
+
+  private Future<AsyncResult<SQLConnection>> startTransaction(PostgresClient postgresClient) {
+    Promise<AsyncResult<SQLConnection>> promise = Promise.promise();
+    postgresClient.startTx(promise::complete);
+    return promise.future();
+  }
+
+  private Future<Void> endTransaction(PostgresClient postgresClient, AsyncResult<SQLConnection> connection) {
+    Promise<Void> promise = Promise.promise();
+    postgresClient.endTx(connection, promise);
+    return promise.future();
+  }
 
-    NoteCollection noteCollection = new NoteCollection();
-    noteCollection.setNotes(notes);
-    Integer totalRecords = results.getResultInfo().getTotalRecords();
-    noteCollection.setTotalRecords(totalRecords);
-    return noteCollection;
+  private Future<Void> rollbackTransaction(PostgresClient postgresClient, AsyncResult<SQLConnection> connection) {
+    Promise<Void> promise = Promise.promise();
+    postgresClient.rollbackTx(connection, promise);
+    return promise.future();
   }
 
-  private Note mapNoteView(NoteView noteView) {
-    return new Note()
-      .withId(noteView.getId())
-      .withTypeId(noteView.getTypeId())
-      .withType(noteView.getType())
-      .withDomain(noteView.getDomain())
-      .withTitle(noteView.getTitle())
-      .withContent(noteView.getContent())
-      .withCreator(noteView.getCreator())
-      .withUpdater(noteView.getUpdater())
-      .withMetadata(noteView.getMetadata())
-      .withLinks(noteView.getLinks());
+  private String getNoteViewName(String tenantId) {
+    return PostgresClient.convertToPsqlStandard(tenantId) + "." + (deferredOrphansDeletion ? LINKED_NOTE_VIEW : NOTE_VIEW);
   }
 }
@@ -1,19 +1,37 @@
 package org.folio.note;
 
+import java.util.List;
+
 import io.vertx.core.Future;
 
 import org.folio.common.OkapiParams;
+import org.folio.model.ChangeCursor;
+import org.folio.model.ExportFilter;
+import org.folio.model.ExportFormat;
+import org.folio.model.NoteExport;
+import org.folio.model.RawNote;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.Note;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteBatchResult;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
 
 public interface NoteService {
-  Future<NoteCollection> getNotes(String query, int offset, int limit, String tenantId);
+  Future<RawNoteCollection> getNotes(String query, int offset, int limit, TotalRecords totalRecords, String tenantId);
 
   Future<Note> addNote(Note note, OkapiParams okapiParams);
 
-  Future<Note> getOneNote(String id, String tenantId);
+  Future<NoteBatchResult> addNotes(List<Note> notes, boolean atomic, OkapiParams okapiParams);
+
+  Future<RawNote> getOneNote(String id, String tenantId);
+
+  Future<String> getNoteHash(String id, String tenantId);
 
   Future<Void> deleteNote(String id, String tenantId);
 
   Future<Void> updateNote(String id, Note note, OkapiParams okapiParams);
+
+  Future<NoteExport> exportNotes(ExportFormat format, ExportFilter filter, int limit, String tenantId);
+
+  Future<NoteChangeCollection> getChanges(ChangeCursor since, int limit, String tenantId);
 }
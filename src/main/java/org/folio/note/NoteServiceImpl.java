@@ -1,11 +1,26 @@
 package org.folio.note;
 
 import static io.vertx.core.Future.failedFuture;
+import static io.vertx.core.Future.succeededFuture;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
+import javax.ws.rs.BadRequestException;
+
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.CaseInsensitiveHeaders;
 import io.vertx.core.json.Json;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -13,29 +28,71 @@ import org.apache.commons.lang.StringUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import org.folio.common.OkapiParams;
+import org.folio.model.ChangeCursor;
+import org.folio.model.ExportFilter;
+import org.folio.model.ExportFormat;
+import org.folio.model.NoteExport;
+import org.folio.model.RawNote;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.TotalRecords;
+import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.exceptions.InputValidationException;
 import org.folio.rest.jaxrs.model.Link;
+import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Note;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteBatchError;
+import org.folio.rest.jaxrs.model.NoteBatchResult;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
+import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.UserDisplayInfo;
+import org.folio.type.NoteTypeRepository;
+import org.folio.userlookup.UserLookUp;
 import org.folio.userlookup.UserLookUpService;
 
 @Component
 public class NoteServiceImpl implements NoteService {
 
+  private static final int SANITIZE_PORTION_SIZE = 50;
+
   private final Logger logger = LoggerFactory.getLogger(NoteServiceImpl.class);
 
+  @Autowired
+  private Vertx vertx;
   @Autowired
   private NoteRepository repository;
   @Autowired
+  private NoteChangeRepository changeRepository;
+  @Autowired
+  private NoteTypeRepository noteTypeRepository;
+  @Autowired
   private UserLookUpService userLookUpService;
+  @Value("${note.batch.size.limit}")
+  private int batchSizeLimit;
+
+  @Override
+  public Future<RawNoteCollection> getNotes(String cqlQuery, int offset, int limit, TotalRecords totalRecords,
+                                            String tenantId) {
+    return repository.findByQuery(cqlQuery, offset, limit, totalRecords, tenantId);
+  }
 
+  /**
+   * Fails with BadRequestException if updatedSince of the filter is not a date-time with offset
+   */
   @Override
-  public Future<NoteCollection> getNotes(String cqlQuery, int offset, int limit, String tenantId) {
-    return repository.findByQuery(cqlQuery, offset, limit, tenantId);
+  public Future<NoteExport> exportNotes(ExportFormat format, ExportFilter filter, int limit, String tenantId) {
+    if (filter.getUpdatedSince() != null) {
+      try {
+        OffsetDateTime.parse(filter.getUpdatedSince());
+      } catch (DateTimeParseException e) {
+        return failedFuture(new BadRequestException("updatedSince is incorrect: " + filter.getUpdatedSince(), e));
+      }
+    }
+    NoteExport export = new NoteExport(format);
+    return repository.readForExport(filter, limit, tenantId, export::addNote).map(o -> export);
   }
 
   @Override
@@ -58,16 +115,69 @@ public class NoteServiceImpl implements NoteService {
       });
   }
 
+  /**
+   * Notes are validated before the user is looked up, in atomic mode nothing else is done
+   * if some of notes are not valid. Contents of valid notes are sanitized in portions on worker threads
+   * and the notes are inserted with one statement.
+   */
+  @Override
+  public Future<NoteBatchResult> addNotes(List<Note> notes, boolean atomic, OkapiParams okapiParams) {
+    if (notes.size() > batchSizeLimit) {
+      return failedFuture(new BadRequestException("Number of notes is greater than " + batchSizeLimit));
+    }
+    NoteBatchResult result = new NoteBatchResult().withNotes(new ArrayList<>()).withErrors(new ArrayList<>());
+    if (notes.isEmpty()) {
+      return succeededFuture(result);
+    }
+
+    List<String> typeIds = notes.stream()
+      .map(Note::getTypeId)
+      .filter(NoteValidator::isUuid)
+      .distinct()
+      .collect(toList());
+    Future<Set<String>> existingTypeIds = typeIds.isEmpty()
+      ? succeededFuture(new HashSet<>())
+      : noteTypeRepository.findByIds(typeIds, okapiParams.getTenant())
+          .map(types -> types.stream().map(NoteType::getId).collect(toSet()));
+
+    return existingTypeIds.compose(existing -> {
+      List<Integer> validIndexes = validateNotes(notes, existing, result);
+      if (validIndexes.isEmpty() || atomic && !result.getErrors().isEmpty()) {
+        return succeededFuture(result);
+      }
+      List<Note> validNotes = validIndexes.stream().map(notes::get).collect(toList());
+      return createNotes(validNotes, atomic, okapiParams)
+        .map(savedIds -> {
+          boolean saved = !atomic || savedIds.size() == validNotes.size();
+          for (int i = 0; i < validIndexes.size(); i++) {
+            Note note = validNotes.get(i);
+            if (!savedIds.contains(note.getId())) {
+              addError(result, validIndexes.get(i), "Note with id " + note.getId() + " already exists");
+            } else if (saved) {
+              result.getNotes().add(note);
+            }
+          }
+          result.getErrors().sort((first, second) -> first.getIndex().compareTo(second.getIndex()));
+          return result;
+        });
+    });
+  }
+
   /**
    * Fetches a note record from the database
    *
    * @param id id of note to get
    */
   @Override
-  public Future<Note> getOneNote(String id, String tenantId) {
+  public Future<RawNote> getOneNote(String id, String tenantId) {
     return repository.findOne(id, tenantId);
   }
 
+  @Override
+  public Future<String> getNoteHash(String id, String tenantId) {
+    return repository.findHash(id, tenantId);
+  }
+
   @Override
   public Future<Void> deleteNote(String id, String tenantId) {
     return repository.delete(id, tenantId);
@@ -99,7 +209,87 @@ public class NoteServiceImpl implements NoteService {
       });
   }
 
-  private UserDisplayInfo getUserDisplayInfo(String firstName, String middleName, String lastName) {
+  @Override
+  public Future<NoteChangeCollection> getChanges(ChangeCursor since, int limit, String tenantId) {
+    return changeRepository.findChanges(since, limit, tenantId);
+  }
+
+  /**
+   * Adds errors of notes that are not valid to the result and returns indexes of valid notes
+   */
+  private List<Integer> validateNotes(List<Note> notes, Set<String> typeIds, NoteBatchResult result) {
+    List<Integer> validIndexes = new ArrayList<>();
+    Set<String> ids = new HashSet<>();
+    for (int i = 0; i < notes.size(); i++) {
+      Note note = notes.get(i);
+      String error = NoteValidator.validate(note, typeIds);
+      if (error == null && note.getId() != null && !ids.add(note.getId())) {
+        error = "Note with id " + note.getId() + " is repeated in the request";
+      }
+      if (error != null) {
+        addError(result, i, error);
+      } else {
+        validIndexes.add(i);
+      }
+    }
+    return validIndexes;
+  }
+
+  private Future<Set<String>> createNotes(List<Note> notes, boolean atomic, OkapiParams okapiParams) {
+    CaseInsensitiveHeaders headers = new CaseInsensitiveHeaders();
+    headers.addAll(okapiParams.getHeadersAsMap());
+    String userId = headers.get(XOkapiHeaders.USER_ID);
+
+    return userLookUpService.getUserInfo(okapiParams.getHeadersAsMap())
+      .compose(user -> sanitizeContents(notes).map(o -> {
+        UserDisplayInfo creator = getUserDisplayInfo(user);
+        Metadata metadata = createMetadata(userId, user);
+        notes.forEach(note -> note.withCreator(creator).withMetadata(metadata));
+        return notes;
+      }))
+      .compose(sanitizedNotes -> repository.saveAll(sanitizedNotes, atomic, okapiParams.getTenant()));
+  }
+
+  @SuppressWarnings("rawtypes")
+  private Future<Void> sanitizeContents(List<Note> notes) {
+    List<Future> portions = new ArrayList<>();
+    for (int from = 0; from < notes.size(); from += SANITIZE_PORTION_SIZE) {
+      List<Note> portion = notes.subList(from, Math.min(from + SANITIZE_PORTION_SIZE, notes.size()));
+      Promise<Void> promise = Promise.promise();
+      vertx.executeBlocking(blockingPromise -> {
+        portion.stream()
+          .filter(note -> StringUtils.isNotBlank(note.getContent()))
+          .forEach(note -> note.setContent(sanitizeHtml(note.getContent())));
+        blockingPromise.complete();
+      }, false, promise);
+      portions.add(promise.future());
+    }
+    return CompositeFuture.all(portions).map(o -> null);
+  }
+
+  private void addError(NoteBatchResult result, int index, String message) {
+    result.getErrors().add(new NoteBatchError().withIndex(index).withMessage(message));
+  }
+
+  static UserDisplayInfo getUserDisplayInfo(UserLookUp user) {
+    return getUserDisplayInfo(user.getFirstName(), user.getMiddleName(), user.getLastName());
+  }
+
+  /**
+   * Creates metadata of notes that are created by the user in bulk, where metadata is not populated by RMB
+   */
+  static Metadata createMetadata(String userId, UserLookUp user) {
+    Date now = new Date();
+    return new Metadata()
+      .withCreatedDate(now)
+      .withCreatedByUserId(userId)
+      .withCreatedByUsername(user.getUserName())
+      .withUpdatedDate(now)
+      .withUpdatedByUserId(userId)
+      .withUpdatedByUsername(user.getUserName());
+  }
+
+  static UserDisplayInfo getUserDisplayInfo(String firstName, String middleName, String lastName) {
     final UserDisplayInfo userDisplayInfo = new UserDisplayInfo();
     userDisplayInfo.setFirstName(firstName);
     userDisplayInfo.setMiddleName(middleName);
@@ -107,7 +297,7 @@ public class NoteServiceImpl implements NoteService {
     return userDisplayInfo;
   }
 
-  private String sanitizeHtml(String content) {
+  static String sanitizeHtml(String content) {
     return Jsoup.clean(content, Whitelist.relaxed().removeTags("img"));
   }
 }
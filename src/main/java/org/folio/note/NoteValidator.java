@@ -0,0 +1,72 @@
+package org.folio.note;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.folio.rest.jaxrs.model.Link;
+import org.folio.rest.jaxrs.model.Note;
+
+/**
+ * Validates notes that are created in bulk, where a note that is not valid is reported
+ * instead of failing the whole request the way schema validation of a single note does
+ */
+final class NoteValidator {
+
+  private static final Pattern UUID_PATTERN =
+    Pattern.compile("^[a-fA-F0-9]{8}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{12}$");
+  private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+  private NoteValidator() {
+  }
+
+  static boolean isUuid(String value) {
+    return value != null && UUID_PATTERN.matcher(value).matches();
+  }
+
+  /**
+   * Returns description of the first problem of the note or null if the note is valid.
+   * Note is checked the same way as a note created by POST /notes: against constraints that are generated
+   * from note.json and link.json schemas, and then for links and the note type
+   *
+   * @param typeIds ids of existing note types
+   */
+  static String validate(Note note, Set<String> typeIds) {
+    if (note == null) {
+      return "note may not be null";
+    }
+    String violation = VALIDATOR.validate(note).stream()
+      .min(Comparator.comparing(v -> v.getPropertyPath().toString()))
+      .map(NoteValidator::describe)
+      .orElse(null);
+    if (violation != null) {
+      return violation;
+    } else if (note.getLinks().isEmpty()) {
+      return "At least one link should be present";
+    } else if (!typeIds.contains(note.getTypeId())) {
+      return "Note type with id " + note.getTypeId() + " doesn't exist";
+    }
+    return validateLinks(note.getLinks());
+  }
+
+  private static String describe(ConstraintViolation<Note> violation) {
+    return violation.getPropertyPath() + " " + violation.getMessage();
+  }
+
+  /**
+   * Elements of the links array are not checked for null by the schema constraints
+   */
+  private static String validateLinks(List<Link> links) {
+    for (int i = 0; i < links.size(); i++) {
+      if (links.get(i) == null) {
+        return "links[" + i + "] may not be null";
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,122 @@
+package org.folio.note;
+
+import java.util.Iterator;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.sql.UpdateResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.folio.rest.persist.PostgresClient;
+import org.folio.tenant.TenantRegistry;
+
+/**
+ * Periodically deletes notes that are left without links when deletion of such notes is deferred.
+ * Notes are deleted tenant by tenant in batches, every batch is a separate statement,
+ * so deletion doesn't hold locks of many notes at once. Every instance of the module runs the sweeper,
+ * a tenant is swept by one instance at a time.
+ */
+@Component
+public class OrphanNoteSweeper {
+
+  private static final String NOTE_TABLE = "note_data";
+  private static final String SWEEP_LOCK_PREFIX = "orphan note sweep ";
+  /**
+   * Notes that are locked by concurrent updates are skipped, links_count is checked once more
+   * on the latest version of the note, because a link could be added to the note after it was found.
+   * Nothing is deleted if another instance of the module holds the sweep lock of the tenant,
+   * the lock is released at the end of the statement.
+   */
+  private static final String DELETE_NOTES_WITHOUT_LINKS =
+    "WITH sweep AS (SELECT pg_try_advisory_xact_lock(hashtext(?)) AS locked) " +
+    "DELETE FROM %1$s AS data " +
+      "WHERE (SELECT locked FROM sweep) AND " +
+      "data.id IN (SELECT orphan.id FROM %1$s AS orphan WHERE orphan.links_count = 0 " +
+      "LIMIT ? FOR UPDATE SKIP LOCKED) AND " +
+      "data.links_count = 0";
+
+  private final Logger logger = LoggerFactory.getLogger(OrphanNoteSweeper.class);
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private NoteCache noteCache;
+  @Autowired
+  private TenantRegistry tenantRegistry;
+  @Value("${note.orphans.deferred.deletion}")
+  private boolean deferredOrphansDeletion;
+  @Value("${note.orphans.sweep.interval}")
+  private long sweepInterval;
+  @Value("${note.orphans.sweep.batch.size}")
+  private int batchSize;
+
+  private boolean sweeping;
+
+  /**
+   * Starts periodic deletion of notes without links, does nothing if deletion of such notes is not deferred
+   */
+  public void start() {
+    if (!deferredOrphansDeletion) {
+      return;
+    }
+    vertx.setPeriodic(sweepInterval, timerId -> {
+      if (sweeping) {
+        return;
+      }
+      sweeping = true;
+      sweep().setHandler(result -> {
+        sweeping = false;
+        if (result.failed()) {
+          logger.warn("Failed to delete notes without links", result.cause());
+        }
+      });
+    });
+  }
+
+  /**
+   * Sweeps tenants of {@link TenantRegistry} one by one, failure of one tenant doesn't stop sweeping of the others
+   */
+  Future<Void> sweep() {
+    return tenantRegistry.findTenants().compose(tenants -> sweepTenants(tenants.iterator()));
+  }
+
+  private Future<Void> sweepTenants(Iterator<String> tenants) {
+    if (!tenants.hasNext()) {
+      return Future.succeededFuture();
+    }
+    String tenantId = tenants.next();
+    return sweepTenant(tenantId, 0)
+      .map(deleted -> {
+        if (deleted > 0) {
+          noteCache.invalidateAll(tenantId);
+          logger.info("Deleted " + deleted + " notes without links of tenant " + tenantId);
+        }
+        return null;
+      })
+      .otherwise(e -> {
+        logger.warn("Failed to delete notes without links of tenant " + tenantId, e);
+        return null;
+      })
+      .compose(o -> sweepTenants(tenants));
+  }
+
+  private Future<Integer> sweepTenant(String tenantId, int deletedBefore) {
+    Promise<UpdateResult> promise = Promise.promise();
+    String noteTable = PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_TABLE;
+    PostgresClient.getInstance(vertx, tenantId)
+      .execute(String.format(DELETE_NOTES_WITHOUT_LINKS, noteTable),
+        new JsonArray().add(SWEEP_LOCK_PREFIX + tenantId).add(batchSize), promise);
+
+    return promise.future().compose(result -> {
+      int deleted = deletedBefore + result.getUpdated();
+      // full batch means that there can be more notes to delete
+      return result.getUpdated() < batchSize ? Future.succeededFuture(deleted) : sweepTenant(tenantId, deleted);
+    });
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.rest.exceptions;
+
+/**
+ * Thrown when an update keeps failing because of concurrent updates of the same records
+ * after all retries are used
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public ConcurrentUpdateException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,13 @@
+package org.folio.rest.exceptions;
+
+/**
+ * Thrown when changes after a change cursor are deleted after the retention period,
+ * so the client would miss them if reading continued from the cursor
+ */
+public class ExpiredCursorException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public ExpiredCursorException(String message) {
+    super(message);
+  }
+}
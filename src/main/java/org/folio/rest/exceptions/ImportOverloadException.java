@@ -0,0 +1,13 @@
+package org.folio.rest.exceptions;
+
+/**
+ * Thrown when lines of an import are received faster than they are saved
+ * and the number of batches waiting to be saved exceeds the limit
+ */
+public class ImportOverloadException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public ImportOverloadException(String message) {
+    super(message);
+  }
+}
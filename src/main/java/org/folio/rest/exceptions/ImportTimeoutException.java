@@ -0,0 +1,12 @@
+package org.folio.rest.exceptions;
+
+/**
+ * Thrown when an import is dropped because no part of its stream was received during the idle timeout
+ */
+public class ImportTimeoutException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public ImportTimeoutException(String message) {
+    super(message);
+  }
+}
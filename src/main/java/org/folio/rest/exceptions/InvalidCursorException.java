@@ -0,0 +1,16 @@
+package org.folio.rest.exceptions;
+
+/**
+ * Thrown when a paging or change cursor passed by the client can't be used
+ */
+public class InvalidCursorException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+
+  public InvalidCursorException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
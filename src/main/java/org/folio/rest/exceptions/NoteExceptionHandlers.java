@@ -1,6 +1,10 @@
 package org.folio.rest.exceptions;
 
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
+import static org.apache.http.HttpStatus.SC_CONFLICT;
+import static org.apache.http.HttpStatus.SC_GONE;
+import static org.apache.http.HttpStatus.SC_REQUEST_TIMEOUT;
+import static org.apache.http.HttpStatus.SC_SERVICE_UNAVAILABLE;
 import static org.apache.http.HttpStatus.SC_UNPROCESSABLE_ENTITY;
 
 import static org.folio.common.pf.PartialFunctions.pf;
@@ -37,5 +41,37 @@ public class NoteExceptionHandlers {
     return ResponseHelper.statusWithJson(SC_BAD_REQUEST, "Invalid query");
   }
 
+  public static PartialFunction<Throwable, Response> concurrentUpdateHandler() {
+    return pf(instanceOf(ConcurrentUpdateException.class), NoteExceptionHandlers::toConflictEntity);
+  }
+
+  private static Response toConflictEntity(Throwable t) {
+    return ResponseHelper.statusWithJson(SC_CONFLICT, t.getMessage());
+  }
+
+  public static PartialFunction<Throwable, Response> expiredCursorHandler() {
+    return pf(instanceOf(ExpiredCursorException.class), NoteExceptionHandlers::toGoneEntity);
+  }
+
+  private static Response toGoneEntity(Throwable t) {
+    return ResponseHelper.statusWithJson(SC_GONE, t.getMessage());
+  }
+
+  public static PartialFunction<Throwable, Response> importOverloadHandler() {
+    return pf(instanceOf(ImportOverloadException.class), NoteExceptionHandlers::toServiceUnavailableEntity);
+  }
+
+  private static Response toServiceUnavailableEntity(Throwable t) {
+    return ResponseHelper.statusWithJson(SC_SERVICE_UNAVAILABLE, t.getMessage());
+  }
+
+  public static PartialFunction<Throwable, Response> importTimeoutHandler() {
+    return pf(instanceOf(ImportTimeoutException.class), NoteExceptionHandlers::toRequestTimeoutEntity);
+  }
+
+  private static Response toRequestTimeoutEntity(Throwable t) {
+    return ResponseHelper.statusWithJson(SC_REQUEST_TIMEOUT, t.getMessage());
+  }
+
 }
 
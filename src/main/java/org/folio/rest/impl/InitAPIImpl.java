@@ -5,13 +5,30 @@ import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import org.folio.metrics.MetricsReporter;
+import org.folio.note.NoteCacheInvalidator;
+import org.folio.note.NoteChangeLogPruner;
+import org.folio.note.OrphanNoteSweeper;
 import org.folio.rest.resource.interfaces.InitAPI;
 import org.folio.spring.SpringContextUtil;
 import org.folio.spring.config.ApplicationConfig;
+import org.folio.tenant.TenantRegistry;
 
 public class InitAPIImpl implements InitAPI {
 
+  @Autowired
+  private OrphanNoteSweeper orphanNoteSweeper;
+  @Autowired
+  private NoteCacheInvalidator noteCacheInvalidator;
+  @Autowired
+  private NoteChangeLogPruner noteChangeLogPruner;
+  @Autowired
+  private MetricsReporter metricsReporter;
+  @Autowired
+  private TenantRegistry tenantRegistry;
+
   @Override
   public void init(Vertx vertx, Context context, Handler<AsyncResult<Boolean>> handler) {
     vertx.executeBlocking(
@@ -21,7 +38,19 @@ public class InitAPIImpl implements InitAPI {
       },
       result -> {
         if (result.succeeded()) {
-          handler.handle(Future.succeededFuture(true));
+          SpringContextUtil.autowireDependencies(this, context);
+          // periodic tasks read tenants from the registry, so its table is created before they start
+          tenantRegistry.createTable().setHandler(created -> {
+            if (created.succeeded()) {
+              orphanNoteSweeper.start();
+              noteCacheInvalidator.start();
+              noteChangeLogPruner.start();
+              metricsReporter.start();
+              handler.handle(Future.succeededFuture(true));
+            } else {
+              handler.handle(Future.failedFuture(created.cause()));
+            }
+          });
         } else {
           handler.handle(Future.failedFuture(result.cause()));
         }
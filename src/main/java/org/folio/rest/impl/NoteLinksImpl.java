@@ -3,6 +3,7 @@ package org.folio.rest.impl;
 import static org.folio.rest.ResponseHelper.respond;
 import static org.folio.rest.tools.utils.TenantTool.tenantId;
 import static org.folio.rest.validate.ValidationMethods.validateEnum;
+import static org.folio.util.RawJsonResponses.respond200WithRawJson;
 
 import java.util.List;
 import java.util.Map;
@@ -22,11 +23,17 @@ import org.folio.links.NoteLinksService;
 import org.folio.model.EntityLink;
 import org.folio.model.Order;
 import org.folio.model.OrderBy;
+import org.folio.model.PageCursor;
+import org.folio.model.RawNoteCollection;
 import org.folio.model.RowPortion;
 import org.folio.model.Status;
+import org.folio.model.TotalRecords;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Link;
-import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteCounts;
+import org.folio.rest.jaxrs.model.NoteCountsPost;
+import org.folio.rest.jaxrs.model.NoteLinksBatchPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchResult;
 import org.folio.rest.jaxrs.model.NoteLinksPut;
 import org.folio.rest.jaxrs.resource.NoteLinks;
 import org.folio.rest.validate.Validation;
@@ -58,26 +65,45 @@ public class NoteLinksImpl implements NoteLinks {
     respond(updated, v -> PutNoteLinksTypeIdByTypeAndIdResponse.respond204(), asyncHandler, excHandler);
   }
 
+  @Validate
+  @Override
+  public void putNoteLinksBatch(NoteLinksBatchPut entity, Map<String, String> okapiHeaders,
+                                Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    Future<NoteLinksBatchResult> updated = noteLinksService.updateNoteLinks(entity, tenantId(okapiHeaders));
+
+    respond(updated, PutNoteLinksBatchResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+  }
+
+  @Validate
+  @Override
+  public void postNoteLinksCounts(NoteCountsPost entity, Map<String, String> okapiHeaders,
+                                  Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    Future<NoteCounts> counts = noteLinksService.countNotes(entity, tenantId(okapiHeaders));
+
+    respond(counts, PostNoteLinksCountsResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+  }
+
   @Validate
   @Override
   public void getNoteLinksDomainTypeIdByDomainAndTypeAndId(String domain, String type, String id, String title,
                                                            List<String> noteTypes, String status, String orderBy, String order,
-                                                           int offset, int limit, Map<String, String> okapiHeaders,
+                                                           String totalRecords, String cursor, int offset, int limit, Map<String, String> okapiHeaders,
                                                            Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
 
     Future<Void> validated = Validation.instance()
       .addTest(status, validateEnum(Status.class))
       .addTest(order, validateEnum(Order.class))
       .addTest(orderBy, validateEnum(OrderBy.class))
+      .addTest(totalRecords, validateEnum(TotalRecords.class))
       .validate();
 
-    Future<NoteCollection> notes = validated.compose(
+    Future<RawNoteCollection> notes = validated.compose(
         v -> noteLinksService.findNotesByTitleAndNoteTypeAndStatus(new EntityLink(domain, type, id), title, noteTypes,
               Status.enumOf(status), OrderBy.enumOf(orderBy), Order.enumOf(order),
-              new RowPortion(offset, limit), tenantId(okapiHeaders)));
+              new RowPortion(offset, limit), cursor != null ? PageCursor.decode(cursor) : null,
+              TotalRecords.enumOf(totalRecords), tenantId(okapiHeaders)));
 
-    respond(notes, GetNoteLinksDomainTypeIdByDomainAndTypeAndIdResponse::respond200WithApplicationJson,
-      asyncHandler, excHandler);
+    respond(notes, found -> respond200WithRawJson(found.encode()), asyncHandler, excHandler);
   }
 
   private static Link link(String type, String id) {
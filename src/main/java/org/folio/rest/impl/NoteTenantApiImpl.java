@@ -10,7 +10,9 @@ import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.TenantAttributes;
+import org.folio.rest.tools.utils.TenantTool;
 import org.folio.spring.SpringContextUtil;
+import org.folio.tenant.TenantRegistry;
 import org.folio.type.NoteTypeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,6 +34,8 @@ public class NoteTenantApiImpl extends TenantAPI {
   private String defaultNoteTypeName;
   @Autowired
   private NoteTypeRepository typeRepository;
+  @Autowired
+  private TenantRegistry tenantRegistry;
 
   public NoteTenantApiImpl() {
     SpringContextUtil.autowireDependencies(this, Vertx.currentContext());
@@ -45,9 +49,49 @@ public class NoteTenantApiImpl extends TenantAPI {
     super.postTenant(entity, headers, promise, context);
 
     promise.future().compose(response -> populateDefaultNoteType(headers).map(response))
+    .compose(response -> isSuccessful(response)
+      ? registerTenant(headers).map(response)
+      : Future.succeededFuture(response))
     .setHandler(handlers);
   }
 
+  @Validate
+  @Override
+  public void deleteTenant(Map<String, String> headers, Handler<AsyncResult<Response>> handlers, Context context) {
+    Promise<Response> promise = Promise.promise();
+    super.deleteTenant(headers, promise, context);
+
+    promise.future()
+      .compose(response -> isSuccessful(response)
+        ? unregisterTenant(headers).map(response)
+        : Future.succeededFuture(response))
+      .setHandler(handlers);
+  }
+
+  private boolean isSuccessful(Response response) {
+    return response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL;
+  }
+
+  private Future<Object> registerTenant(Map<String, String> headers) {
+    String tenant = TenantTool.tenantId(headers);
+    return tenantRegistry.register(tenant)
+      .<Object>map(o -> null)
+      .otherwise(e -> {
+        logger.error("Failed to register tenant " + tenant, e);
+        return null;
+      });
+  }
+
+  private Future<Object> unregisterTenant(Map<String, String> headers) {
+    String tenant = TenantTool.tenantId(headers);
+    return tenantRegistry.unregister(tenant)
+      .<Object>map(o -> null)
+      .otherwise(e -> {
+        logger.error("Failed to unregister tenant " + tenant, e);
+        return null;
+      });
+  }
+
   private Future<Object> populateDefaultNoteType(Map<String, String> headers) {
     return Future.succeededFuture(null)
       .compose(o -> {
@@ -2,9 +2,13 @@ package org.folio.rest.impl;
 
 import static org.folio.rest.ResponseHelper.respond;
 import static org.folio.rest.tools.utils.TenantTool.tenantId;
+import static org.folio.rest.validate.ValidationMethods.validateEnum;
 
 import java.util.Map;
+import java.util.function.Function;
 
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import io.vertx.core.AsyncResult;
@@ -12,16 +16,20 @@ import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.Json;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import org.folio.common.OkapiParams;
 import org.folio.common.pf.PartialFunction;
+import org.folio.model.TotalRecords;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.NoteTypeCollection;
 import org.folio.rest.jaxrs.resource.NoteTypes;
+import org.folio.rest.validate.Validation;
 import org.folio.spring.SpringContextUtil;
+import org.folio.util.EntityTags;
 import org.folio.type.NoteTypeService;
 
 public class NoteTypesImpl implements NoteTypes {
@@ -38,11 +46,15 @@ public class NoteTypesImpl implements NoteTypes {
 
   @Validate
   @Override
-  public void getNoteTypes(String query, int offset, int limit, String lang, Map<String, String> okapiHeaders,
-      Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
-    Future<NoteTypeCollection> found = typeService.findByQuery(query, offset, limit, lang, tenantId(okapiHeaders));
-
-    respond(found, GetNoteTypesResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+  public void getNoteTypes(String totalRecords, String query, int offset, int limit, String lang, String ifNoneMatch,
+      Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    Future<NoteTypeCollection> found = Validation.instance()
+      .addTest(totalRecords, validateEnum(TotalRecords.class))
+      .validate()
+      .compose(v -> typeService.findByQuery(query, offset, limit, TotalRecords.enumOf(totalRecords), lang,
+        tenantId(okapiHeaders)));
+
+    respond(found, respond200WithEntityTag(ifNoneMatch), asyncHandler, excHandler);
   }
 
   @Validate
@@ -58,11 +70,11 @@ public class NoteTypesImpl implements NoteTypes {
 
   @Validate
   @Override
-  public void getNoteTypesByTypeId(String typeId, String lang, Map<String, String> okapiHeaders,
+  public void getNoteTypesByTypeId(String typeId, String lang, String ifNoneMatch, Map<String, String> okapiHeaders,
                                    Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
     Future<NoteType> found = typeService.findById(typeId, tenantId(okapiHeaders));
 
-    respond(found, GetNoteTypesByTypeIdResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+    respond(found, respond200WithEntityTag(ifNoneMatch), asyncHandler, excHandler);
   }
 
   @Validate
@@ -83,4 +95,20 @@ public class NoteTypesImpl implements NoteTypes {
     respond(updated, v -> PutNoteTypesByTypeIdResponse.respond204(), asyncHandler, excHandler);
   }
 
+  /**
+   * Entity tag is the hash of the entity encoded as json, 304 is returned if the client has the current entity
+   */
+  private static <T> Function<T, Response> respond200WithEntityTag(String ifNoneMatch) {
+    return entity -> {
+      String tag = EntityTags.of(Json.encode(entity));
+      if (EntityTags.matches(ifNoneMatch, tag)) {
+        return EntityTags.notModified(tag);
+      }
+      return Response.status(Response.Status.OK)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ETAG, tag)
+        .entity(entity)
+        .build();
+    };
+  }
 }
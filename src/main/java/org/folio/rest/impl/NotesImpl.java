@@ -4,11 +4,16 @@ import static io.vertx.core.Future.succeededFuture;
 
 import static org.folio.common.pf.PartialFunctions.pf;
 import static org.folio.rest.tools.utils.TenantTool.tenantId;
+import static org.folio.rest.validate.ValidationMethods.validateEnum;
+import static org.folio.util.RawJsonResponses.respond200WithRawJson;
 
+import java.io.InputStream;
 import java.util.Map;
 import java.util.function.Function;
 
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import io.vertx.core.AsyncResult;
@@ -24,19 +29,35 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import org.folio.common.OkapiParams;
 import org.folio.common.pf.PartialFunction;
+import org.folio.model.ChangeCursor;
+import org.folio.model.ExportFilter;
+import org.folio.model.ExportFormat;
+import org.folio.model.NoteExport;
+import org.folio.model.RawNote;
+import org.folio.model.RawNoteCollection;
+import org.folio.model.TotalRecords;
+import org.folio.note.NoteImportService;
 import org.folio.note.NoteService;
 import org.folio.rest.ResponseHelper;
+import org.folio.rest.RestVerticle;
+import org.folio.rest.annotations.Stream;
 import org.folio.rest.annotations.Validate;
 import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteBatchPost;
 import org.folio.rest.jaxrs.resource.Notes;
+import org.folio.rest.validate.Validation;
 import org.folio.spring.SpringContextUtil;
+import org.folio.util.EntityTags;
 
 public class NotesImpl implements Notes {
   private static final String LOCATION_PREFIX = "/notes/";
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
   private final Logger logger = LoggerFactory.getLogger("mod-notes");
 
   @Autowired
   private NoteService noteService;
+  @Autowired
+  private NoteImportService noteImportService;
   @Autowired @Qualifier("notesExcHandler")
   private PartialFunction<Throwable, Response> excHandler;
 
@@ -46,15 +67,61 @@ public class NotesImpl implements Notes {
 
   @Override
   @Validate
-  public void getNotes(String query,
+  public void getNotes(String totalRecords, String query,
                        int offset, int limit, String lang,
                        Map<String, String> okapiHeaders,
                        Handler<AsyncResult<Response>> asyncHandler,
                        Context vertxContext) {
     logger.debug("Getting notes. " + offset + "+" + limit + " q=" + query);
 
-    ResponseHelper.respond(noteService.getNotes(query, offset, limit, tenantId(okapiHeaders)),
-      GetNotesResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+    Future<RawNoteCollection> found = Validation.instance()
+      .addTest(totalRecords, validateEnum(TotalRecords.class))
+      .validate()
+      .compose(v -> noteService.getNotes(query, offset, limit, TotalRecords.enumOf(totalRecords),
+        tenantId(okapiHeaders)));
+    ResponseHelper.respond(found,
+      notes -> respond200WithRawJson(notes.encode()), asyncHandler, excHandler);
+  }
+
+  @Override
+  @Validate
+  public void getNotesChanges(String since, int limit, Map<String, String> okapiHeaders,
+                              Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    respond(() -> noteService.getChanges(since != null ? ChangeCursor.decode(since) : ChangeCursor.START, limit,
+        tenantId(okapiHeaders)),
+      GetNotesChangesResponse::respond200WithApplicationJson, asyncHandler);
+  }
+
+  /**
+   * Body is not validated by RMB, so that notes that are not valid are reported one by one
+   * instead of failing the whole request
+   */
+  @Override
+  public void postNotesBatch(NoteBatchPost entity, Map<String, String> okapiHeaders,
+                             Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    succeededFuture()
+      .compose(o -> noteService.addNotes(entity.getNotes(), entity.getAtomic(), new OkapiParams(okapiHeaders)))
+      .map(result -> entity.getAtomic() && !result.getErrors().isEmpty()
+        ? PostNotesBatchResponse.respond422WithApplicationJson(result)
+        : PostNotesBatchResponse.respond201WithApplicationJson(result))
+      .otherwise(
+        userNotFoundHandler()
+          .orElse(excHandler))
+      .setHandler(asyncHandler);
+  }
+
+  @Override
+  @Validate
+  public void getNotesExport(String format, String domain, String updatedSince, String cursor, int limit,
+                             Map<String, String> okapiHeaders, Handler<AsyncResult<Response>> asyncHandler,
+                             Context vertxContext) {
+    Future<NoteExport> export = Validation.instance()
+      .addTest(format, validateEnum(ExportFormat.class))
+      .validate()
+      .compose(v -> noteService.exportNotes(ExportFormat.enumOf(format),
+        new ExportFilter(domain, updatedSince, cursor), limit, tenantId(okapiHeaders)));
+
+    ResponseHelper.respond(export, notes -> respond200WithExport(notes, limit), asyncHandler, excHandler);
   }
 
   @Override
@@ -70,12 +137,36 @@ public class NotesImpl implements Notes {
       .setHandler(asyncHandler);
   }
 
+  /**
+   * Method is called for every chunk of the request body, the response is sent only after the last chunk
+   */
+  @Override
+  @Stream
+  public void postNotesImport(InputStream entity, Map<String, String> okapiHeaders,
+                              Handler<AsyncResult<Response>> asyncHandler, Context vertxContext) {
+    String importId = okapiHeaders.get(RestVerticle.STREAM_ID);
+    OkapiParams okapiParams = new OkapiParams(okapiHeaders);
+    if (okapiHeaders.containsKey(RestVerticle.STREAM_COMPLETE)) {
+      succeededFuture()
+        .compose(o -> noteImportService.complete(importId, okapiParams))
+        .map(PostNotesImportResponse::respond200WithApplicationJson)
+        .otherwise(
+          userNotFoundHandler()
+            .orElse(excHandler))
+        .setHandler(asyncHandler);
+    } else if (okapiHeaders.containsKey(RestVerticle.STREAM_ABORT)) {
+      noteImportService.abort(importId);
+    } else {
+      noteImportService.addChunk(importId, entity, okapiParams);
+    }
+  }
+
   @Override
   @Validate
-  public void getNotesById(String id, String lang, Map<String, String> okapiHeaders,
+  public void getNotesById(String id, String lang, String ifNoneMatch, Map<String, String> okapiHeaders,
                            Handler<AsyncResult<Response>> asyncHandler, Context context) {
-    ResponseHelper.respond(noteService.getOneNote(id, tenantId(okapiHeaders)),
-      GetNotesByIdResponse::respond200WithApplicationJson, asyncHandler, excHandler);
+    ResponseHelper.respond(findNote(id, ifNoneMatch, tenantId(okapiHeaders)),
+      Function.identity(), asyncHandler, excHandler);
   }
 
   @Override
@@ -104,6 +195,42 @@ public class NotesImpl implements Notes {
         PostNotesResponse.headersFor201().withLocation(LOCATION_PREFIX + note.getId()));
   }
 
+  /**
+   * If the client has a version of the note, only hash of the note is read to check whether the version is current
+   */
+  private Future<Response> findNote(String id, String ifNoneMatch, String tenantId) {
+    if (ifNoneMatch == null) {
+      return noteService.getOneNote(id, tenantId).map(NotesImpl::respond200WithNote);
+    }
+    return noteService.getNoteHash(id, tenantId).compose(hash -> {
+      String tag = EntityTags.fromHash(hash);
+      return EntityTags.matches(ifNoneMatch, tag)
+        ? succeededFuture(EntityTags.notModified(tag))
+        : noteService.getOneNote(id, tenantId).map(NotesImpl::respond200WithNote);
+    });
+  }
+
+  private static Response respond200WithNote(RawNote note) {
+    return Response.status(Response.Status.OK)
+      .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+      .header(HttpHeaders.ETAG, EntityTags.fromHash(note.getHash()))
+      .entity(note.getJson())
+      .build();
+  }
+
+  /**
+   * Cursor of the next page is returned only if the page is full, otherwise it is the last page
+   */
+  private static Response respond200WithExport(NoteExport notes, int limit) {
+    Response.ResponseBuilder response = Response.status(Response.Status.OK)
+      .header(HttpHeaders.CONTENT_TYPE, notes.getFormat().getContentType())
+      .entity(notes.encode());
+    if (notes.size() == limit) {
+      response.header(NEXT_CURSOR_HEADER, notes.getLastId());
+    }
+    return response.build();
+  }
+
   private PartialFunction<Throwable, Response> userNotFoundHandler() {
     return pf((NotFoundException.class::isInstance), t -> PostNotesResponse.respond400WithTextPlain(t.getMessage()));
   }
@@ -9,8 +9,12 @@ import static org.folio.rest.exc.RestExceptionHandlers.baseUnprocessableHandler;
 import static org.folio.rest.exc.RestExceptionHandlers.completionCause;
 import static org.folio.rest.exc.RestExceptionHandlers.generalHandler;
 import static org.folio.rest.exc.RestExceptionHandlers.logged;
+import static org.folio.rest.exceptions.NoteExceptionHandlers.concurrentUpdateHandler;
 import static org.folio.rest.exceptions.NoteExceptionHandlers.cqlValidationHandler;
 import static org.folio.rest.exceptions.NoteExceptionHandlers.entityValidationHandler;
+import static org.folio.rest.exceptions.NoteExceptionHandlers.expiredCursorHandler;
+import static org.folio.rest.exceptions.NoteExceptionHandlers.importOverloadHandler;
+import static org.folio.rest.exceptions.NoteExceptionHandlers.importTimeoutHandler;
 
 import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.core.Response;
@@ -19,6 +23,7 @@ import org.folio.common.pf.PartialFunction;
 import org.folio.config.ModConfiguration;
 import org.folio.db.exc.translation.DBExceptionTranslator;
 import org.folio.db.exc.translation.DBExceptionTranslatorFactory;
+import org.folio.rest.exceptions.InvalidCursorException;
 import org.folio.rest.tools.messages.Messages;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -33,7 +38,9 @@ import com.rits.cloning.Cloner;
 @ComponentScan(basePackages = {
   "org.folio.type",
   "org.folio.note",
+  "org.folio.tenant",
   "org.folio.links",
+  "org.folio.metrics",
   "org.folio.userlookup"})
 public class ApplicationConfig {
 
@@ -55,6 +62,10 @@ public class ApplicationConfig {
                 .orElse(cqlValidationHandler())
                 .orElse(baseBadRequestHandler())
                 .orElse(badRequestHandler(instanceOf(NotAuthorizedException.class)))
+                .orElse(badRequestHandler(instanceOf(InvalidCursorException.class)))
+                .orElse(expiredCursorHandler())
+                .orElse(importOverloadHandler())
+                .orElse(importTimeoutHandler())
                 .orElse(baseNotFoundHandler())
                 .orElse(generalHandler())
                 .compose(completionCause())); // extract the cause before applying any handler
@@ -74,6 +85,8 @@ public class ApplicationConfig {
   public PartialFunction<Throwable, Response> noteLinksExcHandler() {
     return logged(baseBadRequestHandler()
       .orElse(badRequestHandler(instanceOf(IllegalArgumentException.class)))
+      .orElse(badRequestHandler(instanceOf(InvalidCursorException.class)))
+      .orElse(concurrentUpdateHandler())
       .orElse(baseNotFoundHandler())
       .orElse(generalHandler())
       .compose(completionCause())); // extract the cause before applying any handler
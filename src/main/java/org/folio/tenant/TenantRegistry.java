@@ -0,0 +1,89 @@
+package org.folio.tenant;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.UpdateResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.folio.db.exc.translation.DBExceptionTranslator;
+import org.folio.rest.persist.PostgresClient;
+
+/**
+ * Tenants that have the module enabled. Tenants are registered when the module is enabled or upgraded
+ * and unregistered when it is disabled, so that periodic tasks of the module don't touch schemas
+ * of tenants that no longer use it. Registry is shared by all instances of the module.
+ * Table of the registry is created when the module starts and when a tenant is registered,
+ * it is dropped when the last tenant is unregistered. Until it is created again there are no tenants to find.
+ */
+@Component
+public class TenantRegistry {
+
+  private static final String UNDEFINED_TABLE = "42P01";
+  private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS %s (tenant_id text PRIMARY KEY)";
+  private static final String INSERT_TENANT = "INSERT INTO %s (tenant_id) VALUES (?) ON CONFLICT DO NOTHING";
+  private static final String DELETE_TENANT = "DELETE FROM %s WHERE tenant_id = ?";
+  // table is locked first, so a tenant that is registered concurrently is seen and is not dropped with the table
+  private static final String DROP_TABLE_IF_EMPTY = "DO $$ BEGIN "
+    + "LOCK TABLE %1$s IN EXCLUSIVE MODE; "
+    + "IF NOT EXISTS (SELECT 1 FROM %1$s) THEN DROP TABLE %1$s; END IF; "
+    + "END $$";
+  private static final String SELECT_TENANTS = "SELECT tenant_id FROM %s ORDER BY tenant_id";
+
+  @Autowired
+  private Vertx vertx;
+  @Autowired
+  private DBExceptionTranslator excTranslator;
+
+  public Future<Void> createTable() {
+    return execute(CREATE_TABLE, new JsonArray());
+  }
+
+  public Future<Void> register(String tenantId) {
+    return createTable().compose(o -> execute(INSERT_TENANT, new JsonArray().add(tenantId)));
+  }
+
+  /**
+   * Removes the tenant when its data is purged
+   */
+  public Future<Void> unregister(String tenantId) {
+    return execute(DELETE_TENANT, new JsonArray().add(tenantId))
+      .compose(o -> execute(DROP_TABLE_IF_EMPTY, new JsonArray()));
+  }
+
+  public Future<List<String>> findTenants() {
+    Promise<ResultSet> promise = Promise.promise();
+    PostgresClient.getInstance(vertx).select(String.format(SELECT_TENANTS, getTableName()), promise);
+    return promise.future()
+      .map(resultSet -> resultSet.getResults().stream()
+        .map(row -> row.getString(0))
+        .collect(Collectors.toList()))
+      .recover(e -> isUndefinedTable(e)
+        ? Future.succeededFuture(Collections.emptyList())
+        : Future.failedFuture(e));
+  }
+
+  private boolean isUndefinedTable(Throwable e) {
+    return excTranslator.acceptable(e) && UNDEFINED_TABLE.equals(excTranslator.translate(e).getSqlState());
+  }
+
+  private Future<Void> execute(String query, JsonArray parameters) {
+    Promise<UpdateResult> promise = Promise.promise();
+    PostgresClient.getInstance(vertx).execute(String.format(query, getTableName()), parameters, promise);
+    return promise.future().map(result -> null);
+  }
+
+  /**
+   * Registry is kept in the public schema, table name starts with the module name
+   */
+  private String getTableName() {
+    return "public." + PostgresClient.getModuleName() + "_tenant";
+  }
+}
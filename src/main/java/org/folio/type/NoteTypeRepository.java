@@ -5,12 +5,14 @@ import java.util.Optional;
 
 import io.vertx.core.Future;
 
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.NoteTypeCollection;
 
 public interface NoteTypeRepository {
 
-  Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, String tenantId);
+  Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, TotalRecords totalRecords,
+                                         String tenantId);
 
   Future<Optional<NoteType>> findById(String id, String tenantId);
 
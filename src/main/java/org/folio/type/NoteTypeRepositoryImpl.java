@@ -11,18 +11,30 @@ import java.util.UUID;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.ext.sql.ResultSet;
 import io.vertx.ext.sql.UpdateResult;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import org.folio.cql2pgjson.CQL2PgJSON;
+import org.folio.cql2pgjson.exception.FieldException;
 import org.folio.db.CqlQuery;
 import org.folio.db.exc.translation.DBExceptionTranslator;
+import org.folio.model.RowCount;
+import org.folio.model.TotalRecords;
+import org.folio.note.NoteCache;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.NoteTypeCollection;
+import org.folio.rest.persist.Criteria.Limit;
+import org.folio.rest.persist.Criteria.Offset;
 import org.folio.rest.persist.PostgresClient;
+import org.folio.rest.persist.cql.CQLQueryValidationException;
+import org.folio.rest.persist.cql.CQLWrapper;
 import org.folio.rest.persist.interfaces.Results;
+import org.folio.util.DbRowCounter;
 
 @Component
 public class NoteTypeRepositoryImpl implements NoteTypeRepository {
@@ -30,18 +42,60 @@ public class NoteTypeRepositoryImpl implements NoteTypeRepository {
   private static final String NOTE_TYPE_TABLE = "note_type";
   private static final String NOTE_TYPE_VIEW = "note_type_view";
   private static final String SELECT_TOTAL_COUNT = "SELECT count(*) FROM " + NOTE_TYPE_TABLE;
+  private static final String SELECT_NOTE_TYPE_ROWS = "SELECT 1 FROM %s.%s %s";
+  private static final String ALL_RECORDS_QUERY = "cql.allRecords=1";
+  private static final String[] ALL_FIELDS = {"*"};
 
   @Autowired
   private Vertx vertx;
   @Autowired
   private DBExceptionTranslator excTranslator;
+  @Autowired
+  private NoteCache noteCache;
+  @Value("${note.total.records.estimate.threshold}")
+  private int estimateThreshold;
 
 
+  /**
+   * If totalRecords is estimated, the page is selected without count and the number of matching note types
+   * is estimated by the query planner at the same time
+   */
   @Override
-  public Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, String tenantId) {
-    CqlQuery<NoteType> q = new CqlQuery<>(pgClient(tenantId), NOTE_TYPE_VIEW, NoteType.class);
+  public Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, TotalRecords totalRecords,
+                                                String tenantId) {
+    if (totalRecords == TotalRecords.EXACT) {
+      CqlQuery<NoteType> q = new CqlQuery<>(pgClient(tenantId), NOTE_TYPE_VIEW, NoteType.class);
+
+      return q.get(query, offset, limit).map(this::toNoteTypeCollection)
+        .map(noteTypes -> noteTypes.withTotalRecordsMode(TotalRecords.EXACT.getValue()));
+    }
+
+    CQLWrapper page;
+    String whereClause;
+    try {
+      CQL2PgJSON field = new CQL2PgJSON(NOTE_TYPE_VIEW + ".jsonb");
+      String cql = StringUtils.isNotBlank(query) ? query : ALL_RECORDS_QUERY;
+      page = new CQLWrapper(field, cql).setLimit(new Limit(limit)).setOffset(new Offset(offset));
+      whereClause = new CQLWrapper(field, cql).toString();
+    } catch (FieldException | CQLQueryValidationException e) {
+      return Future.failedFuture(e);
+    }
 
-    return q.get(query, offset, limit).map(this::toNoteTypeCollection);
+    Promise<Results<NoteType>> promise = Promise.promise();
+    pgClient(tenantId).get(NOTE_TYPE_VIEW, NoteType.class, ALL_FIELDS, page, false, false, promise);
+    Future<NoteTypeCollection> found = promise.future()
+      .map(results -> new NoteTypeCollection().withNoteTypes(results.getResults()));
+    if (totalRecords == TotalRecords.NONE) {
+      return found;
+    }
+
+    String rowsQuery = String.format(SELECT_NOTE_TYPE_ROWS, PostgresClient.convertToPsqlStandard(tenantId),
+      NOTE_TYPE_VIEW, whereClause);
+    Future<RowCount> counted = DbRowCounter.estimateAboveThreshold(pgClient(tenantId), rowsQuery, new JsonArray(),
+      estimateThreshold);
+    return found.compose(noteTypes -> counted.map(rowCount -> noteTypes
+      .withTotalRecords(rowCount.getCount())
+      .withTotalRecordsMode(rowCount.getMode().getValue())));
   }
 
   @Override
@@ -91,7 +145,8 @@ public class NoteTypeRepositoryImpl implements NoteTypeRepository {
 
     pgClient(tenantId).update(NOTE_TYPE_TABLE, entity, entity.getId(), promise);
 
-    return promise.future().map(updateResult -> updateResult.getUpdated() == 1)
+    // cached notes contain name of their type
+    return promise.future().map(updateResult -> invalidateCachedNotes(updateResult.getUpdated() == 1, tenantId))
       .recover(excTranslator.translateOrPassBy());
   }
 
@@ -101,10 +156,17 @@ public class NoteTypeRepositoryImpl implements NoteTypeRepository {
 
     pgClient(tenantId).delete(NOTE_TYPE_TABLE, id, promise);
 
-    return promise.future().map(updateResult -> updateResult.getUpdated() == 1)
+    return promise.future().map(updateResult -> invalidateCachedNotes(updateResult.getUpdated() == 1, tenantId))
       .recover(excTranslator.translateOrPassBy());
   }
 
+  private boolean invalidateCachedNotes(boolean changed, String tenantId) {
+    if (changed) {
+      noteCache.invalidateAll(tenantId);
+    }
+    return changed;
+  }
+
   private PostgresClient pgClient(String tenantId) {
     return PostgresClient.getInstance(vertx, tenantId);
   }
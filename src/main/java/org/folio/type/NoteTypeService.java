@@ -5,12 +5,14 @@ import java.util.List;
 import io.vertx.core.Future;
 
 import org.folio.common.OkapiParams;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.NoteTypeCollection;
 
 public interface NoteTypeService {
 
-  Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, String lang, String tenantId);
+  Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, TotalRecords totalRecords, String lang,
+                                         String tenantId);
 
   Future<NoteType> findById(String id, String tenantId);
 
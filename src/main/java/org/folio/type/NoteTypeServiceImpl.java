@@ -11,6 +11,7 @@ import javax.ws.rs.BadRequestException;
 import org.folio.common.OkapiParams;
 import org.folio.config.Configuration;
 import org.folio.db.exc.DbExcUtils;
+import org.folio.model.TotalRecords;
 import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.rest.jaxrs.model.NoteTypeCollection;
 import org.folio.service.exc.ServiceExceptions;
@@ -42,8 +43,9 @@ public class NoteTypeServiceImpl implements NoteTypeService {
   private int defaultNoteTypeLimit;
 
   @Override
-  public Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, String lang, String tenantId) {
-    return repository.findByQuery(query, offset, limit, tenantId);
+  public Future<NoteTypeCollection> findByQuery(String query, int offset, int limit, TotalRecords totalRecords,
+                                                String lang, String tenantId) {
+    return repository.findByQuery(query, offset, limit, totalRecords, tenantId);
   }
 
   @Override
@@ -0,0 +1,100 @@
+package org.folio.util;
+
+import static io.vertx.core.Future.succeededFuture;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.ext.sql.SQLConnection;
+import io.vertx.ext.sql.UpdateResult;
+import org.apache.commons.lang3.mutable.MutableObject;
+
+import org.folio.rest.persist.PostgresClient;
+
+/**
+ * Reads result of a query through a database cursor in batches of fixed size.
+ * Next batch is fetched only after every row of the previous one is handled,
+ * so at most one batch of rows is kept in memory and the database is not asked for more rows
+ * than the caller has consumed. A query that can't select more rows than one batch is run
+ * as a plain select, without a transaction and a cursor.
+ */
+public final class DbCursorReader {
+
+  private static final String DECLARE_CURSOR = "DECLARE rows_cursor NO SCROLL CURSOR FOR ";
+  private static final String FETCH_FROM_CURSOR = "FETCH %d FROM rows_cursor";
+
+  private DbCursorReader() {
+  }
+
+  /**
+   * Passes every row of the query result to rowHandler, rows are passed in the order of the query result.
+   * maxRows is the limit of the query
+   */
+  public static Future<Void> read(PostgresClient postgresClient, String query, JsonArray parameters, int maxRows,
+                                  int fetchSize, Handler<JsonArray> rowHandler) {
+    if (maxRows <= fetchSize) {
+      Promise<ResultSet> promise = Promise.promise();
+      postgresClient.select(query, parameters, promise);
+      return promise.future().map(resultSet -> {
+        resultSet.getResults().forEach(rowHandler::handle);
+        return null;
+      });
+    }
+    MutableObject<AsyncResult<SQLConnection>> connection = new MutableObject<>();
+
+    return startTransaction(postgresClient)
+      .compose(resultConnection -> {
+        connection.setValue(resultConnection);
+        return declareCursor(postgresClient, connection.getValue(), query, parameters);
+      })
+      .compose(o -> fetch(postgresClient, connection.getValue(), fetchSize, rowHandler))
+      // cursor is closed on the end of transaction
+      .compose(o -> endTransaction(postgresClient, connection.getValue()))
+      .recover(e -> rollbackTransaction(postgresClient, connection, e));
+  }
+
+  private static Future<Void> declareCursor(PostgresClient postgresClient, AsyncResult<SQLConnection> connection,
+                                            String query, JsonArray parameters) {
+    Promise<UpdateResult> promise = Promise.promise();
+    postgresClient.execute(connection, DECLARE_CURSOR + query, parameters, promise);
+    return promise.future().map(result -> null);
+  }
+
+  private static Future<Void> fetch(PostgresClient postgresClient, AsyncResult<SQLConnection> connection,
+                                    int fetchSize, Handler<JsonArray> rowHandler) {
+    Promise<ResultSet> promise = Promise.promise();
+    postgresClient.select(connection, String.format(FETCH_FROM_CURSOR, fetchSize), promise);
+
+    return promise.future().compose(resultSet -> {
+      resultSet.getResults().forEach(rowHandler::handle);
+      return resultSet.getNumRows() < fetchSize
+        ? succeededFuture()
+        : fetch(postgresClient, connection, fetchSize, rowHandler);
+    });
+  }
+
+  private static Future<AsyncResult<SQLConnection>> startTransaction(PostgresClient postgresClient) {
+    Promise<AsyncResult<SQLConnection>> promise = Promise.promise();
+    postgresClient.startTx(promise::complete);
+    return promise.future();
+  }
+
+  private static Future<Void> endTransaction(PostgresClient postgresClient, AsyncResult<SQLConnection> connection) {
+    Promise<Void> promise = Promise.promise();
+    postgresClient.endTx(connection, promise);
+    return promise.future();
+  }
+
+  private static Future<Void> rollbackTransaction(PostgresClient postgresClient,
+                                                  MutableObject<AsyncResult<SQLConnection>> connection, Throwable e) {
+    if (connection.getValue() != null) {
+      Promise<Void> promise = Promise.promise();
+      postgresClient.rollbackTx(connection.getValue(), rollback -> promise.fail(e));
+      return promise.future();
+    }
+    return Future.failedFuture(e);
+  }
+}
@@ -0,0 +1,58 @@
+package org.folio.util;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.ext.sql.ResultSet;
+
+import org.folio.model.RowCount;
+import org.folio.model.TotalRecords;
+import org.folio.rest.persist.PostgresClient;
+
+/**
+ * Counts rows returned by a query either exactly or by the estimate of the query planner.
+ * Queries passed to the counter should select rows without ordering and paging, e.g. "SELECT 1 FROM ... WHERE ...".
+ */
+public final class DbRowCounter {
+
+  private static final String COUNT_ROWS = "SELECT count(*) FROM (%s) AS rows";
+  private static final String EXPLAIN_ROWS = "EXPLAIN (FORMAT JSON) %s";
+
+  private DbRowCounter() {
+  }
+
+  public static Future<Integer> count(PostgresClient postgresClient, String query, JsonArray parameters) {
+    return select(postgresClient, String.format(COUNT_ROWS, query), parameters)
+      .map(resultSet -> resultSet.getResults().get(0).getInteger(0));
+  }
+
+  /**
+   * Returns number of rows estimated for the top plan node of the query, the query itself is not run
+   */
+  public static Future<Integer> estimate(PostgresClient postgresClient, String query, JsonArray parameters) {
+    return select(postgresClient, String.format(EXPLAIN_ROWS, query), parameters)
+      .map(resultSet -> {
+        Object plan = resultSet.getResults().get(0).getValue(0);
+        JsonArray plans = plan instanceof JsonArray ? (JsonArray) plan : new JsonArray(plan.toString());
+        return plans.getJsonObject(0).getJsonObject("Plan").getInteger("Plan Rows");
+      });
+  }
+
+  /**
+   * Returns estimated number of rows if the estimate is above the threshold, otherwise rows are counted exactly.
+   * Estimates of small results are imprecise while counting them is cheap.
+   */
+  public static Future<RowCount> estimateAboveThreshold(PostgresClient postgresClient, String query,
+                                                        JsonArray parameters, int threshold) {
+    return estimate(postgresClient, query, parameters)
+      .compose(estimate -> estimate > threshold
+        ? Future.succeededFuture(new RowCount(estimate, TotalRecords.ESTIMATED))
+        : count(postgresClient, query, parameters).map(count -> new RowCount(count, TotalRecords.EXACT)));
+  }
+
+  private static Future<ResultSet> select(PostgresClient postgresClient, String query, JsonArray parameters) {
+    Promise<ResultSet> promise = Promise.promise();
+    postgresClient.select(query, parameters, promise);
+    return promise.future();
+  }
+}
@@ -0,0 +1,68 @@
+package org.folio.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Strong entity tags that are md5 hashes of response bodies, and evaluation of If-None-Match request header
+ */
+public final class EntityTags {
+
+  private static final String ANY_TAG = "*";
+  private static final String WEAK_TAG_PREFIX = "W/";
+
+  private EntityTags() {
+  }
+
+  /**
+   * Returns entity tag for the hash, the hash should be the md5 hash of the body in hex format
+   */
+  public static String fromHash(String hash) {
+    return '"' + hash + '"';
+  }
+
+  /**
+   * Returns entity tag of the body
+   */
+  public static String of(String body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(body.getBytes(UTF_8));
+      return fromHash(String.format("%032x", new BigInteger(1, digest)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns true if If-None-Match header matches the tag, so the body the client has is the current one.
+   * Tags are compared with the weak comparison, as it is required for If-None-Match.
+   */
+  public static boolean matches(String ifNoneMatch, String tag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String requestedTag : ifNoneMatch.split(",")) {
+      String trimmed = requestedTag.trim();
+      if (ANY_TAG.equals(trimmed) || tag.equals(removeWeakPrefix(trimmed))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static Response notModified(String tag) {
+    return Response.status(Response.Status.NOT_MODIFIED)
+      .header(HttpHeaders.ETAG, tag)
+      .build();
+  }
+
+  private static String removeWeakPrefix(String tag) {
+    return tag.startsWith(WEAK_TAG_PREFIX) ? tag.substring(WEAK_TAG_PREFIX.length()) : tag;
+  }
+}
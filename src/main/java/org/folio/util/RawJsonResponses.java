@@ -0,0 +1,21 @@
+package org.folio.util;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Responses with bodies that are already json text, the text is written without serialization
+ */
+public final class RawJsonResponses {
+
+  private RawJsonResponses() {
+  }
+
+  public static Response respond200WithRawJson(String json) {
+    return Response.status(Response.Status.OK)
+      .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+      .entity(json)
+      .build();
+  }
+}
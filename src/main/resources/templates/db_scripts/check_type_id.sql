@@ -15,4 +15,5 @@ DROP TRIGGER IF EXISTS update_type_id
 CREATE TRIGGER update_type_id
   BEFORE INSERT OR UPDATE ON note_data
   FOR EACH ROW EXECUTE PROCEDURE update_type_id();
+CREATE INDEX IF NOT EXISTS note_data_temporary_type_id_idx ON note_data (temporary_type_id);
 
@@ -0,0 +1,8 @@
+-- Custom script to create linked_note_view that hides notes left without links.
+-- Such notes exist only when deletion of orphan notes is deferred, until they are deleted by the sweeper.
+-- Changes in this file will not result in an update of the view.
+-- To change the view, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+CREATE OR REPLACE VIEW linked_note_view AS
+  SELECT note_view.id, note_view.jsonb, note_view.link_ids, note_view.link_types, note_view.domain, note_view.type_id
+  FROM note_view
+  WHERE note_view.jsonb->'links' <> '[]'::jsonb;
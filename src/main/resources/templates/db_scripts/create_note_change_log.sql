@@ -0,0 +1,67 @@
+-- Custom script to create note_change_log table that keeps changes of notes and note types.
+-- The table is append-only and is maintained by triggers on note_data and note_type tables,
+-- changes older than the retention period are deleted by the module.
+-- txid is the id of the transaction that made the change, changes are read ordered by (txid, seq)
+-- and only changes of finished transactions are read, so that a reader never skips a change committed later.
+-- Changes in this file will not result in an update of the table or the function.
+-- To change them, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+
+CREATE TABLE IF NOT EXISTS note_change_log (
+  seq BIGSERIAL PRIMARY KEY,
+  txid BIGINT NOT NULL DEFAULT txid_current(),
+  entity_type TEXT NOT NULL,
+  entity_id UUID NOT NULL,
+  operation TEXT NOT NULL,
+  links JSONB,
+  changed_date TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS note_change_log_txid_seq_idx ON note_change_log (txid, seq);
+-- changes older than the retention period are deleted by the module in the order of changed_date
+CREATE INDEX IF NOT EXISTS note_change_log_changed_date_idx ON note_change_log (changed_date);
+
+-- the only row keeps position of the last deleted change, changes after a cursor that is before it can be deleted
+CREATE TABLE IF NOT EXISTS note_change_log_pruned (
+  id BOOLEAN PRIMARY KEY DEFAULT true CHECK (id),
+  txid BIGINT NOT NULL,
+  seq BIGINT NOT NULL
+);
+
+-- TG_ARGV[0] is the type of changed entity: NOTE or NOTE_TYPE.
+-- Update of a note that changes only links is logged as LINKS_UPDATE, update that changes nothing is not logged
+CREATE OR REPLACE FUNCTION log_note_change()
+RETURNS TRIGGER AS $$
+DECLARE
+  operation TEXT := TG_OP;
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    INSERT INTO note_change_log (entity_type, entity_id, operation) VALUES (TG_ARGV[0], OLD.id, operation);
+    RETURN NULL;
+  END IF;
+
+  IF TG_OP = 'UPDATE' THEN
+    IF OLD.jsonb IS NOT DISTINCT FROM NEW.jsonb THEN
+      RETURN NULL;
+    END IF;
+    IF TG_ARGV[0] = 'NOTE' AND (OLD.jsonb - 'links') IS NOT DISTINCT FROM (NEW.jsonb - 'links') THEN
+      operation := 'LINKS_UPDATE';
+    END IF;
+  END IF;
+
+  INSERT INTO note_change_log (entity_type, entity_id, operation, links)
+    VALUES (TG_ARGV[0], NEW.id, operation, CASE WHEN TG_ARGV[0] = 'NOTE' THEN NEW.jsonb->'links' END);
+  RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS log_note_change
+  ON note_data;
+CREATE TRIGGER log_note_change
+  AFTER INSERT OR UPDATE OR DELETE ON note_data
+  FOR EACH ROW EXECUTE PROCEDURE log_note_change('NOTE');
+
+DROP TRIGGER IF EXISTS log_note_type_change
+  ON note_type;
+CREATE TRIGGER log_note_type_change
+  AFTER INSERT OR UPDATE OR DELETE ON note_type
+  FOR EACH ROW EXECUTE PROCEDURE log_note_change('NOTE_TYPE');
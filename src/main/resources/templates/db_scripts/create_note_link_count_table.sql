@@ -0,0 +1,77 @@
+-- Custom script to create note_link_count table that keeps number of notes per domain, link and note type.
+-- The table is maintained incrementally by a trigger on note_data and is used to count notes of many entities at once.
+-- Notes without type are counted with type_id '00000000-0000-0000-0000-000000000000'.
+-- Changes in this file will not result in an update of the table or the function.
+-- To change them, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+
+CREATE TABLE IF NOT EXISTS note_link_count (
+  domain TEXT NOT NULL,
+  link_type TEXT NOT NULL,
+  link_id TEXT NOT NULL,
+  type_id UUID NOT NULL,
+  count INTEGER NOT NULL,
+  PRIMARY KEY (domain, link_type, link_id, type_id)
+);
+
+-- Old links of the note are subtracted and new links are added by one statement,
+-- counts are changed in the order of the primary key, so that concurrent updates don't deadlock
+CREATE OR REPLACE FUNCTION update_note_link_count()
+RETURNS TRIGGER AS $$
+DECLARE
+  no_type UUID := '00000000-0000-0000-0000-000000000000';
+  old_domain TEXT;
+  old_type_id UUID;
+  old_links JSONB := '[]'::jsonb;
+  new_domain TEXT;
+  new_type_id UUID;
+  new_links JSONB := '[]'::jsonb;
+BEGIN
+  IF TG_OP <> 'INSERT' THEN
+    old_domain := OLD.jsonb->>'domain';
+    old_type_id := COALESCE(OLD.temporary_type_id, no_type);
+    old_links := COALESCE(OLD.jsonb->'links', '[]'::jsonb);
+  END IF;
+  IF TG_OP <> 'DELETE' THEN
+    new_domain := NEW.jsonb->>'domain';
+    new_type_id := COALESCE(NEW.temporary_type_id, no_type);
+    new_links := COALESCE(NEW.jsonb->'links', '[]'::jsonb);
+  END IF;
+
+  IF old_domain IS NOT DISTINCT FROM new_domain AND old_type_id IS NOT DISTINCT FROM new_type_id
+      AND old_links = new_links THEN
+    RETURN NULL;
+  END IF;
+
+  INSERT INTO note_link_count (domain, link_type, link_id, type_id, count)
+    SELECT delta.domain, delta.link_type, delta.link_id, delta.type_id, sum(delta.count)
+    FROM (
+      SELECT DISTINCT old_domain AS domain, link->>'type' AS link_type, link->>'id' AS link_id,
+        old_type_id AS type_id, -1 AS count
+      FROM jsonb_array_elements(old_links) link
+      UNION ALL
+      SELECT DISTINCT new_domain, link->>'type', link->>'id', new_type_id, 1
+      FROM jsonb_array_elements(new_links) link
+    ) AS delta
+    GROUP BY delta.domain, delta.link_type, delta.link_id, delta.type_id
+    HAVING sum(delta.count) <> 0
+    ORDER BY delta.domain, delta.link_type, delta.link_id, delta.type_id
+  ON CONFLICT (domain, link_type, link_id, type_id) DO UPDATE SET count = note_link_count.count + EXCLUDED.count;
+  RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS update_note_link_count
+  ON note_data;
+CREATE TRIGGER update_note_link_count
+  AFTER INSERT OR UPDATE OR DELETE ON note_data
+  FOR EACH ROW EXECUTE PROCEDURE update_note_link_count();
+
+DELETE FROM note_link_count;
+INSERT INTO note_link_count (domain, link_type, link_id, type_id, count)
+  SELECT links.domain, links.link_type, links.link_id, links.type_id, count(*)
+  FROM (
+    SELECT DISTINCT note_data.id, note_data.jsonb->>'domain' AS domain, link->>'type' AS link_type,
+      link->>'id' AS link_id, COALESCE(note_data.temporary_type_id, '00000000-0000-0000-0000-000000000000') AS type_id
+    FROM note_data, jsonb_array_elements(note_data.jsonb->'links') link
+  ) AS links
+  GROUP BY links.domain, links.link_type, links.link_id, links.type_id;
@@ -0,0 +1,43 @@
+-- Custom script to create note_link table that keeps one row per link of a note.
+-- The table is maintained by a trigger on note_data and is used to look up notes by link (type, id)
+-- without expanding note_data.jsonb->'links' for every row.
+-- Changes in this file will not result in an update of the table or the function.
+-- To change them, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+
+CREATE TABLE IF NOT EXISTS note_link (
+  note_id UUID NOT NULL REFERENCES note_data (id) ON DELETE CASCADE,
+  link_type TEXT NOT NULL,
+  link_id TEXT NOT NULL,
+  PRIMARY KEY (link_type, link_id, note_id)
+);
+
+CREATE INDEX IF NOT EXISTS note_link_note_id_idx ON note_link (note_id);
+
+CREATE OR REPLACE FUNCTION update_note_links()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' THEN
+    IF OLD.jsonb->'links' IS NOT DISTINCT FROM NEW.jsonb->'links' THEN
+      RETURN NULL;
+    END IF;
+    DELETE FROM note_link WHERE note_id = NEW.id;
+  END IF;
+
+  INSERT INTO note_link (note_id, link_type, link_id)
+    SELECT DISTINCT NEW.id, link->>'type', link->>'id'
+    FROM jsonb_array_elements(NEW.jsonb->'links') link
+  ON CONFLICT DO NOTHING;
+  RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS update_note_links
+  ON note_data;
+CREATE TRIGGER update_note_links
+  AFTER INSERT OR UPDATE ON note_data
+  FOR EACH ROW EXECUTE PROCEDURE update_note_links();
+
+INSERT INTO note_link (note_id, link_type, link_id)
+  SELECT DISTINCT note_data.id, link->>'type', link->>'id'
+  FROM note_data, jsonb_array_elements(note_data.jsonb->'links') link
+ON CONFLICT DO NOTHING;
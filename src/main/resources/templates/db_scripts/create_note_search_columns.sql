@@ -0,0 +1,68 @@
+-- Custom script to create additional columns of note_data table that keep pre-computed values used for search.
+-- title_normalized keeps unaccented lower-cased title and is indexed with trigram index to support regex matching.
+-- links_count keeps number of links and is indexed together with domain to support ordering by number of links.
+-- link_ids and link_types keep distinct ids and types of links, they are indexed with GIN indexes and are exposed
+-- by note_view as linkIds and linkTypes, so the view doesn't aggregate links of every row.
+-- Changes in this file will not result in an update of the columns or the function.
+-- To change them, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+
+ALTER TABLE note_data ADD COLUMN IF NOT EXISTS title_normalized TEXT;
+ALTER TABLE note_data ADD COLUMN IF NOT EXISTS links_count INTEGER;
+ALTER TABLE note_data ADD COLUMN IF NOT EXISTS link_ids TEXT[];
+ALTER TABLE note_data ADD COLUMN IF NOT EXISTS link_types TEXT[];
+
+CREATE OR REPLACE FUNCTION note_link_ids(links jsonb)
+RETURNS TEXT[] AS $$
+  SELECT array_agg(DISTINCT link->>'id' ORDER BY link->>'id') FROM jsonb_array_elements(links) link;
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION note_link_types(links jsonb)
+RETURNS TEXT[] AS $$
+  SELECT array_agg(DISTINCT link->>'type' ORDER BY link->>'type') FROM jsonb_array_elements(links) link;
+$$ LANGUAGE sql IMMUTABLE;
+
+-- lower-cased and unaccented values, CQL queries of notes compare link ids this way
+CREATE OR REPLACE FUNCTION note_normalized(string_values TEXT[])
+RETURNS TEXT[] AS $$
+  SELECT array_agg(lower(f_unaccent(value)) ORDER BY value) FROM unnest(string_values) value;
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION update_note_search_columns()
+RETURNS TRIGGER AS $$
+BEGIN
+  NEW.title_normalized = lower(f_unaccent(NEW.jsonb->>'title'));
+  NEW.links_count = COALESCE(jsonb_array_length(NEW.jsonb->'links'), 0);
+  NEW.link_ids = note_link_ids(NEW.jsonb->'links');
+  NEW.link_types = note_link_types(NEW.jsonb->'links');
+  RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS update_note_search_columns
+  ON note_data;
+CREATE TRIGGER update_note_search_columns
+  BEFORE INSERT OR UPDATE ON note_data
+  FOR EACH ROW EXECUTE PROCEDURE update_note_search_columns();
+
+-- the backfill changes only the computed columns, triggers of note_data skip updates that don't change jsonb,
+-- so the backfill doesn't add changes to the change log, doesn't rewrite metadata and doesn't change link counts
+UPDATE note_data SET title_normalized = lower(f_unaccent(jsonb->>'title')),
+  links_count = COALESCE(jsonb_array_length(jsonb->'links'), 0),
+  link_ids = note_link_ids(jsonb->'links'),
+  link_types = note_link_types(jsonb->'links')
+  WHERE title_normalized IS DISTINCT FROM lower(f_unaccent(jsonb->>'title'))
+    OR links_count IS DISTINCT FROM COALESCE(jsonb_array_length(jsonb->'links'), 0)
+    OR link_ids IS DISTINCT FROM note_link_ids(jsonb->'links')
+    OR link_types IS DISTINCT FROM note_link_types(jsonb->'links');
+
+CREATE INDEX IF NOT EXISTS note_data_title_normalized_idx ON note_data USING gin (title_normalized gin_trgm_ops);
+DROP INDEX IF EXISTS note_data_link_ids_idx;
+CREATE INDEX IF NOT EXISTS note_data_link_ids_normalized_idx ON note_data USING gin (note_normalized(link_ids));
+CREATE INDEX IF NOT EXISTS note_data_link_types_idx ON note_data USING gin (link_types);
+CREATE INDEX IF NOT EXISTS note_data_domain_links_count_idx ON note_data ((jsonb->>'domain'), links_count, id);
+-- domain lower-cased and unaccented, as CQL queries of notes compare it
+CREATE INDEX IF NOT EXISTS note_data_domain_normalized_idx ON note_data (lower(f_unaccent(jsonb->>'domain')));
+-- notes of a domain ordered by id, used to read notes of the same status page by page
+CREATE INDEX IF NOT EXISTS note_data_domain_id_idx ON note_data ((jsonb->>'domain'), id);
+-- notes left without links, used by the sweeper of orphan notes when their deletion is deferred
+CREATE INDEX IF NOT EXISTS note_data_without_links_idx ON note_data (id) WHERE links_count = 0;
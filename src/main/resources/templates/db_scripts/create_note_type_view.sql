@@ -6,5 +6,5 @@ CREATE OR REPLACE VIEW note_type_view AS
   'metadata', note_type.jsonb -> 'metadata'::text)
   AS jsonb
   FROM note_type
-    LEFT JOIN note_data ON (note_data.jsonb ->> 'typeId')::uuid = (note_type.id)
+    LEFT JOIN note_data ON note_data.temporary_type_id = note_type.id
     GROUP BY note_type.id;
@@ -1,5 +1,7 @@
 -- Custom script to create note_view. Changes in this file will not result in an update of the view.
 -- To change the view, update this script and copy it to the appropriate scripts.snippet field of the schema.json
+-- linkIds and linkTypes are read from columns maintained by update_note_search_columns trigger,
+-- columns that filters use are also exposed as they are, so that conditions on them are served by indexes of note_data.
 CREATE OR REPLACE VIEW note_view AS
   SELECT note_data.id,
   jsonb_build_object(
@@ -10,13 +12,15 @@ CREATE OR REPLACE VIEW note_view AS
     'creator', note_data.jsonb->'creator',
     'updater', note_data.jsonb->'updater',
     'links', note_data.jsonb->'links',
-    'linkTypes',
-    (SELECT array_agg(DISTINCT type) FROM jsonb_to_recordset(note_data.jsonb->'links') AS x(type text)),
-    'linkIds',
-    (SELECT array_agg(DISTINCT id) FROM jsonb_to_recordset(note_data.jsonb->'links') AS x(id text)),
+    'linkTypes', note_data.link_types,
+    'linkIds', note_data.link_ids,
     'metadata', note_data.jsonb->'metadata',
     'typeId', note_type.jsonb->'id',
     'type', note_type.jsonb->'name')
-  AS jsonb
+  AS jsonb,
+  note_data.link_ids,
+  note_data.link_types,
+  note_data.jsonb->>'domain' AS domain,
+  note_data.temporary_type_id AS type_id
   FROM note_data
-    LEFT JOIN note_type ON note_data.jsonb->>'typeId' = note_type.jsonb->>'id';
+    LEFT JOIN note_type ON note_data.temporary_type_id = note_type.id;
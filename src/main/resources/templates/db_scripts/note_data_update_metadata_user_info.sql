@@ -10,6 +10,8 @@ AS $$
     createdByUsername text;
     updatedByUsername text;
  BEGIN
+   -- an update of columns that are computed from jsonb keeps metadata of the note
+   if OLD.jsonb IS NOT DISTINCT FROM NEW.jsonb then     RETURN NEW;   end if;
    createdBy = OLD.jsonb->'metadata'->>'createdByUserId';
    createdDate = OLD.jsonb->'metadata'->>'createdDate';
    createdByUsername = OLD.jsonb->'metadata'->>'createdByUsername';
@@ -0,0 +1,160 @@
+package org.folio.note;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import static org.folio.test.util.TestUtil.STUB_TENANT;
+import static org.folio.test.util.TestUtil.readFile;
+import static org.folio.util.NoteTestData.NOTE_2;
+import static org.folio.util.NoteTestData.NOTE_TYPE2_ID;
+import static org.folio.util.NoteTestData.NOTE_TYPE2_NAME;
+import static org.folio.util.NoteTestData.USER8;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
+import io.vertx.core.Future;
+import io.vertx.core.json.Json;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.folio.rest.NotesTestBase;
+import org.folio.rest.impl.DBTestUtil;
+import org.folio.rest.jaxrs.model.Note;
+import org.folio.spring.SpringContextUtil;
+import org.folio.test.util.TestBase;
+
+/**
+ * Caching is disabled for other tests, it is enabled here by changing maximal size of the cache bean
+ */
+@RunWith(VertxUnitRunner.class)
+public class NoteCacheInvalidatorTest extends NotesTestBase {
+
+  private static final String MAX_SIZE_FIELD = "maxSize";
+  private static final String NOTES_PATH = "/notes/";
+
+  @Autowired
+  private NoteCache noteCache;
+  @Autowired
+  private NoteCacheInvalidator invalidator;
+
+  private Object maxSize;
+
+  @BeforeClass
+  public static void setUpClass(TestContext context) {
+    TestBase.setUpClass(context);
+    createNoteTypes(context);
+  }
+
+  @AfterClass
+  public static void tearDownClass(TestContext context) {
+    DBTestUtil.deleteAllNoteTypes(vertx);
+    TestBase.tearDownClass(context);
+  }
+
+  @Before
+  public void setUp() {
+    SpringContextUtil.autowireDependenciesFromFirstContext(this, vertx);
+    maxSize = ReflectionTestUtils.getField(noteCache, MAX_SIZE_FIELD);
+    ReflectionTestUtils.setField(noteCache, MAX_SIZE_FIELD, 100);
+    stubFor(
+      get(new UrlPathPattern(new EqualToPattern("/users/88888888-8888-4888-8888-888888888888"), false))
+        .willReturn(new ResponseDefinitionBuilder()
+          .withStatus(200)
+          .withBody(readFile("users/mock_another_user.json"))
+        ));
+  }
+
+  @After
+  public void tearDown() {
+    noteCache.removeTenant(STUB_TENANT);
+    ReflectionTestUtils.setField(noteCache, MAX_SIZE_FIELD, maxSize);
+    DBTestUtil.deleteAllNotes(vertx);
+  }
+
+  @Test
+  public void shouldReadNoteUpdatedThroughApi() {
+    Note note = createNote();
+    getNote(note.getId());
+    assertNotNull(noteCache.get(STUB_TENANT, note.getId()));
+
+    putWithNoContent(NOTES_PATH + note.getId(), Json.encode(note.withTitle("updated title")), USER8);
+
+    assertEquals("updated title", getNote(note.getId()).getTitle());
+  }
+
+  @Test
+  public void shouldEvictNoteChangedByOtherInstance() {
+    Note note = createNote();
+    startTracking(note);
+
+    DBTestUtil.updateNoteTitle(vertx, note.getId(), "changed title");
+    assertEquals(note.getTitle(), getNote(note.getId()).getTitle());
+
+    join(invalidator.poll());
+
+    assertEquals("changed title", getNote(note.getId()).getTitle());
+  }
+
+  @Test
+  public void shouldEvictEveryNoteWhenNoteTypeIsChangedByOtherInstance() {
+    Note note = createNote();
+    startTracking(note);
+
+    DBTestUtil.updateNoteTypeName(vertx, NOTE_TYPE2_ID, "changed type");
+    try {
+      assertEquals(NOTE_TYPE2_NAME, getNote(note.getId()).getType());
+
+      join(invalidator.poll());
+
+      assertEquals("changed type", getNote(note.getId()).getType());
+    } finally {
+      DBTestUtil.updateNoteTypeName(vertx, NOTE_TYPE2_ID, NOTE_TYPE2_NAME);
+    }
+  }
+
+  /**
+   * Caches the note and polls changes, so the tenant is tracked from the last change
+   */
+  private void startTracking(Note note) {
+    getNote(note.getId());
+    join(invalidator.poll());
+    getNote(note.getId());
+    assertNotNull(noteCache.get(STUB_TENANT, note.getId()));
+  }
+
+  private Note createNote() {
+    Note note = Json.decodeValue(NOTE_2, Note.class).withId(UUID.randomUUID().toString());
+    postNoteWithOk(Json.encode(note), USER8);
+    return note;
+  }
+
+  private Note getNote(String id) {
+    return getWithOk(NOTES_PATH + id).as(Note.class);
+  }
+
+  private <T> T join(Future<T> future) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.setHandler(event -> {
+      if (event.succeeded()) {
+        result.complete(event.result());
+      } else {
+        result.completeExceptionally(event.cause());
+      }
+    });
+    return result.join();
+  }
+}
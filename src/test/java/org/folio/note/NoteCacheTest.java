@@ -0,0 +1,97 @@
+package org.folio.note;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.folio.model.RawNote;
+
+public class NoteCacheTest {
+
+  private static final String TENANT = "diku";
+  private static final String OTHER_TENANT = "other";
+
+  private NoteCache cache;
+
+  private static RawNote note(String json) {
+    return new RawNote(json, json);
+  }
+
+  @Before
+  public void setUp() {
+    cache = new NoteCache();
+    ReflectionTestUtils.setField(cache, "maxSize", 2);
+    ReflectionTestUtils.setField(cache, "ttl", 60000L);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyReadNote() {
+    cache.put(TENANT, "1", note("note 1"), cache.getVersion(TENANT));
+    cache.put(TENANT, "2", note("note 2"), cache.getVersion(TENANT));
+    cache.get(TENANT, "1");
+    cache.put(TENANT, "3", note("note 3"), cache.getVersion(TENANT));
+
+    assertEquals(note("note 1"), cache.get(TENANT, "1"));
+    assertNull(cache.get(TENANT, "2"));
+    assertEquals(note("note 3"), cache.get(TENANT, "3"));
+  }
+
+  @Test
+  public void shouldKeepNotesOfTenantsSeparately() {
+    cache.put(TENANT, "1", note("note 1"), cache.getVersion(TENANT));
+    cache.put(OTHER_TENANT, "1", note("other note 1"), cache.getVersion(OTHER_TENANT));
+    cache.invalidateAll(OTHER_TENANT);
+
+    assertEquals(note("note 1"), cache.get(TENANT, "1"));
+    assertNull(cache.get(OTHER_TENANT, "1"));
+  }
+
+  @Test
+  public void shouldNotPutNoteReadBeforeInvalidation() {
+    long version = cache.getVersion(TENANT);
+    cache.invalidate(TENANT, "1");
+    cache.put(TENANT, "1", note("note 1"), version);
+
+    assertNull(cache.get(TENANT, "1"));
+  }
+
+  @Test
+  public void shouldPutNoteReadBeforeInvalidationOfOtherNote() {
+    long version = cache.getVersion(TENANT);
+    cache.invalidate(TENANT, "2");
+    cache.put(TENANT, "1", note("note 1"), version);
+
+    assertEquals(note("note 1"), cache.get(TENANT, "1"));
+  }
+
+  @Test
+  public void shouldNotPutNoteReadBeforeInvalidationOfAllNotes() {
+    long version = cache.getVersion(TENANT);
+    cache.invalidateAll(TENANT);
+    cache.put(TENANT, "1", note("note 1"), version);
+
+    assertNull(cache.get(TENANT, "1"));
+  }
+
+  @Test
+  public void shouldNotPutNoteReadBeforeForgottenInvalidation() {
+    long version = cache.getVersion(TENANT);
+    cache.invalidate(TENANT, "1");
+    cache.invalidate(TENANT, "2");
+    cache.invalidate(TENANT, "3");
+    cache.put(TENANT, "1", note("note 1"), version);
+
+    assertNull(cache.get(TENANT, "1"));
+  }
+
+  @Test
+  public void shouldNotReturnExpiredNote() {
+    ReflectionTestUtils.setField(cache, "ttl", -1L);
+    cache.put(TENANT, "1", note("note 1"), cache.getVersion(TENANT));
+
+    assertNull(cache.get(TENANT, "1"));
+  }
+}
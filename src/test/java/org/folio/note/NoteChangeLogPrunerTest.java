@@ -0,0 +1,146 @@
+package org.folio.note;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.apache.http.HttpStatus.SC_GONE;
+import static org.junit.Assert.assertEquals;
+
+import static org.folio.test.util.TestUtil.readFile;
+import static org.folio.util.NoteTestData.NOTE_2;
+import static org.folio.util.NoteTestData.USER8;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
+import io.vertx.core.json.Json;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import org.folio.rest.NotesTestBase;
+import org.folio.rest.impl.DBTestUtil;
+import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
+import org.folio.spring.SpringContextUtil;
+import org.folio.test.util.TestBase;
+
+@RunWith(VertxUnitRunner.class)
+public class NoteChangeLogPrunerTest extends NotesTestBase {
+
+  private static final String NOTES_CHANGES_PATH = "/notes/changes";
+
+  @Autowired
+  private NoteChangeLogPruner pruner;
+  @Value("${note.changes.retention.days}")
+  private int retentionDays;
+
+  @BeforeClass
+  public static void setUpClass(TestContext context) {
+    TestBase.setUpClass(context);
+    createNoteTypes(context);
+  }
+
+  @AfterClass
+  public static void tearDownClass(TestContext context) {
+    DBTestUtil.deleteAllNoteTypes(vertx);
+    TestBase.tearDownClass(context);
+  }
+
+  @Before
+  public void setUp() {
+    SpringContextUtil.autowireDependenciesFromFirstContext(this, vertx);
+    stubFor(
+      get(new UrlPathPattern(new EqualToPattern("/users/88888888-8888-4888-8888-888888888888"), false))
+        .willReturn(new ResponseDefinitionBuilder()
+          .withStatus(200)
+          .withBody(readFile("users/mock_another_user.json"))
+        ));
+    DBTestUtil.deleteAllChanges(vertx);
+  }
+
+  @After
+  public void tearDown() {
+    DBTestUtil.deleteAllNotes(vertx);
+    DBTestUtil.deleteAllChanges(vertx);
+  }
+
+  @Test
+  public void shouldDeleteChangesOlderThanRetentionPeriod() {
+    createNote();
+    DBTestUtil.ageAllChanges(vertx, retentionDays + 1);
+    createNote();
+
+    prune();
+
+    assertEquals(1, DBTestUtil.countAllChanges(vertx));
+  }
+
+  @Test
+  public void shouldKeepChangesWithinRetentionPeriod() {
+    createNote();
+    DBTestUtil.ageAllChanges(vertx, retentionDays - 1);
+
+    prune();
+
+    assertEquals(1, DBTestUtil.countAllChanges(vertx));
+  }
+
+  @Test
+  public void shouldReturn410WhenChangesAfterCursorAreDeleted() {
+    createNote();
+    String cursor = getChanges("").getNextCursor();
+    createNote();
+    DBTestUtil.ageAllChanges(vertx, retentionDays + 1);
+    createNote();
+
+    prune();
+
+    getWithStatus(NOTES_CHANGES_PATH + "?since=" + cursor, SC_GONE);
+    NoteChangeCollection changes = getChanges("");
+    assertEquals(1, changes.getChanges().size());
+    assertEquals(0, getChanges("?since=" + changes.getNextCursor()).getChanges().size());
+  }
+
+  @Test
+  public void shouldReadChangesFromCursorWhenOnlyChangesBeforeItAreDeleted() {
+    createNote();
+    DBTestUtil.ageAllChanges(vertx, retentionDays + 1);
+    String cursor = getChanges("").getNextCursor();
+    createNote();
+
+    prune();
+
+    assertEquals(1, getChanges("?since=" + cursor).getChanges().size());
+  }
+
+  private NoteChangeCollection getChanges(String query) {
+    return getWithOk(NOTES_CHANGES_PATH + query).as(NoteChangeCollection.class);
+  }
+
+  private void createNote() {
+    Note note = Json.decodeValue(NOTE_2, Note.class).withId(UUID.randomUUID().toString());
+    postNoteWithOk(Json.encode(note), USER8);
+  }
+
+  private void prune() {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    pruner.prune().setHandler(event -> {
+      if (event.succeeded()) {
+        result.complete(null);
+      } else {
+        result.completeExceptionally(event.cause());
+      }
+    });
+    result.join();
+  }
+}
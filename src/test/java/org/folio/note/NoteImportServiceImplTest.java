@@ -0,0 +1,181 @@
+package org.folio.note;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import static org.folio.util.NoteTestData.NOTE_1;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.folio.common.OkapiParams;
+import org.folio.rest.exceptions.ImportOverloadException;
+import org.folio.rest.exceptions.ImportTimeoutException;
+import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteImportResult;
+import org.folio.rest.jaxrs.model.NoteType;
+import org.folio.rest.jaxrs.model.NoteTypeCollection;
+import org.folio.spring.config.TestConfig;
+import org.folio.type.NoteTypeRepository;
+import org.folio.userlookup.UserLookUp;
+import org.folio.userlookup.UserLookUpService;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = TestConfig.class)
+public class NoteImportServiceImplTest {
+
+  @Autowired
+  @InjectMocks
+  NoteImportServiceImpl importService;
+  @Autowired
+  Vertx vertx;
+  @Mock
+  NoteRepositoryImpl repository;
+  @Mock
+  NoteTypeRepository noteTypeRepository;
+  @Mock
+  UserLookUpService userLookUpService;
+
+  // ids of dropped imports are kept by the service, so every test has its own import
+  private final String importId = UUID.randomUUID().toString();
+  private OkapiParams okapiParams = mock(OkapiParams.class);
+  private Object batchSize;
+  private Object pendingBatchesLimit;
+  private Object idleTimeout;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    batchSize = ReflectionTestUtils.getField(importService, "batchSize");
+    pendingBatchesLimit = ReflectionTestUtils.getField(importService, "pendingBatchesLimit");
+    idleTimeout = ReflectionTestUtils.getField(importService, "idleTimeout");
+
+    String typeId = new JsonObject(NOTE_1).getString("typeId");
+    when(okapiParams.getTenant()).thenReturn("diku");
+    when(noteTypeRepository.findByQuery(anyString(), anyInt(), anyInt(), any(), anyString())).thenReturn(
+      Future.succeededFuture(new NoteTypeCollection().withNoteTypes(
+        Collections.singletonList(new NoteType().withId(typeId)))));
+    when(userLookUpService.getUserInfo(any())).thenReturn(Future.succeededFuture(UserLookUp.builder().build()));
+    when(repository.saveAll(any(), anyBoolean(), anyString())).thenAnswer(invocation -> Future.succeededFuture(
+      ((List<Note>) invocation.getArgument(0)).stream().map(Note::getId).collect(toSet())));
+  }
+
+  @After
+  public void tearDown() {
+    ReflectionTestUtils.setField(importService, "batchSize", batchSize);
+    ReflectionTestUtils.setField(importService, "pendingBatchesLimit", pendingBatchesLimit);
+    ReflectionTestUtils.setField(importService, "idleTimeout", idleTimeout);
+  }
+
+  @Test
+  public void shouldStopImportWhenTooManyBatchesWaitToBeSaved() throws Exception {
+    ReflectionTestUtils.setField(importService, "batchSize", 1);
+    ReflectionTestUtils.setField(importService, "pendingBatchesLimit", 2);
+
+    AsyncResult<NoteImportResult> result = onContext(() -> {
+      importService.addChunk(importId, lines(4), okapiParams);
+      return importService.complete(importId, okapiParams);
+    });
+
+    assertThat(result.cause(), instanceOf(ImportOverloadException.class));
+    verify(repository, times(2)).saveAll(any(), anyBoolean(), anyString());
+  }
+
+  @Test
+  public void shouldDropLinesOfAbortedImport() throws Exception {
+    AsyncResult<NoteImportResult> result = onContext(() -> {
+      importService.addChunk(importId, lines(2), okapiParams);
+      importService.abort(importId);
+      return importService.complete(importId, okapiParams);
+    });
+
+    assertEquals(0, result.result().getTotalLines().intValue());
+    verify(repository, never()).saveAll(any(), anyBoolean(), anyString());
+  }
+
+  @Test
+  public void shouldFailCompletionOfImportDroppedAfterIdleTimeout() throws Exception {
+    ReflectionTestUtils.setField(importService, "idleTimeout", 10L);
+
+    onContext(() -> {
+      importService.addChunk(importId, lines(2), okapiParams);
+      return Future.succeededFuture();
+    });
+    TimeUnit.MILLISECONDS.sleep(200);
+    AsyncResult<NoteImportResult> result = onContext(() -> importService.complete(importId, okapiParams));
+
+    assertThat(result.cause(), instanceOf(ImportTimeoutException.class));
+    verify(repository, never()).saveAll(any(), anyBoolean(), anyString());
+  }
+
+  @Test
+  public void shouldNotStartNewImportFromChunkReceivedAfterIdleTimeout() throws Exception {
+    ReflectionTestUtils.setField(importService, "idleTimeout", 10L);
+
+    onContext(() -> {
+      importService.addChunk(importId, lines(2), okapiParams);
+      return Future.succeededFuture();
+    });
+    TimeUnit.MILLISECONDS.sleep(200);
+    AsyncResult<NoteImportResult> result = onContext(() -> {
+      importService.addChunk(importId, lines(2), okapiParams);
+      return importService.complete(importId, okapiParams);
+    });
+
+    assertThat(result.cause(), instanceOf(ImportTimeoutException.class));
+    verify(repository, never()).saveAll(any(), anyBoolean(), anyString());
+  }
+
+  private ByteArrayInputStream lines(int count) {
+    JsonObject note = new JsonObject(NOTE_1);
+    note.remove("id");
+    StringBuilder lines = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      lines.append(note.encode()).append('\n');
+    }
+    return new ByteArrayInputStream(lines.toString().getBytes(UTF_8));
+  }
+
+  /**
+   * Runs the action on an event loop like chunks of a request are handled and waits for its result
+   */
+  private <T> AsyncResult<T> onContext(Supplier<Future<T>> action) throws Exception {
+    CompletableFuture<AsyncResult<T>> result = new CompletableFuture<>();
+    vertx.runOnContext(v -> action.get().setHandler(result::complete));
+    return result.get(5, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,163 @@
+package org.folio.note;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import static org.folio.test.util.TestUtil.STUB_TENANT;
+import static org.folio.test.util.TestUtil.readFile;
+import static org.folio.util.NoteTestData.NOTE_2;
+import static org.folio.util.NoteTestData.PACKAGE_ID2;
+import static org.folio.util.NoteTestData.PACKAGE_TYPE;
+import static org.folio.util.NoteTestData.USER8;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
+import io.vertx.core.Future;
+import io.vertx.core.json.Json;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import org.folio.links.NoteLinksRepository;
+import org.folio.rest.NotesTestBase;
+import org.folio.rest.impl.DBTestUtil;
+import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteLinkPut;
+import org.folio.rest.jaxrs.model.NoteLinksPut;
+import org.folio.spring.SpringContextUtil;
+import org.folio.tenant.TenantRegistry;
+import org.folio.test.util.TestBase;
+
+@RunWith(VertxUnitRunner.class)
+public class OrphanNoteSweeperTest extends NotesTestBase {
+
+  private static final String NOTE_LINKS_PATH = "note-links/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID2;
+  private static final String DEFERRED_DELETION_FIELD = "deferredOrphansDeletion";
+
+  @Autowired
+  private OrphanNoteSweeper sweeper;
+  @Autowired
+  private TenantRegistry tenantRegistry;
+  @Autowired
+  private NoteRepository noteRepository;
+  @Autowired
+  private NoteLinksRepository noteLinksRepository;
+
+  @BeforeClass
+  public static void setUpClass(TestContext context) {
+    TestBase.setUpClass(context);
+    createNoteTypes(context);
+  }
+
+  @AfterClass
+  public static void tearDownClass(TestContext context) {
+    DBTestUtil.deleteAllNoteTypes(vertx);
+    TestBase.tearDownClass(context);
+  }
+
+  @Before
+  public void setUp() {
+    SpringContextUtil.autowireDependenciesFromFirstContext(this, vertx);
+    ReflectionTestUtils.setField(noteRepository, DEFERRED_DELETION_FIELD, true);
+    ReflectionTestUtils.setField(noteLinksRepository, DEFERRED_DELETION_FIELD, true);
+    stubFor(
+      get(new UrlPathPattern(new EqualToPattern("/users/88888888-8888-4888-8888-888888888888"), false))
+        .willReturn(new ResponseDefinitionBuilder()
+          .withStatus(200)
+          .withBody(readFile("users/mock_another_user.json"))
+        ));
+  }
+
+  @After
+  public void tearDown() {
+    ReflectionTestUtils.setField(noteRepository, DEFERRED_DELETION_FIELD, false);
+    ReflectionTestUtils.setField(noteLinksRepository, DEFERRED_DELETION_FIELD, false);
+    DBTestUtil.deleteAllNotes(vertx);
+  }
+
+  @Test
+  public void shouldRegisterTenantWhenModuleIsEnabled() {
+    assertThat(join(tenantRegistry.findTenants()), hasItem(STUB_TENANT));
+  }
+
+  @Test
+  public void shouldKeepUnassignedNoteUntilItIsSwept() {
+    Note note = createNote();
+    unassign(note);
+
+    assertEquals(1, DBTestUtil.countAllNotes(vertx));
+    NoteCollection notes = getWithOk("/notes").as(NoteCollection.class);
+    assertEquals(0, notes.getNotes().size());
+    assertEquals(0, (int) notes.getTotalRecords());
+    getWithStatus("/notes/" + note.getId(), SC_NOT_FOUND);
+
+    join(sweeper.sweep());
+
+    assertEquals(0, DBTestUtil.countAllNotes(vertx));
+  }
+
+  @Test
+  public void shouldKeepNoteThatHasLinks() {
+    createNote();
+
+    join(sweeper.sweep());
+
+    assertEquals(1, DBTestUtil.countAllNotes(vertx));
+  }
+
+  @Test
+  public void shouldNotSweepTenantThatIsNotRegistered() {
+    Note note = createNote();
+    unassign(note);
+
+    join(tenantRegistry.unregister(STUB_TENANT));
+    try {
+      join(sweeper.sweep());
+    } finally {
+      join(tenantRegistry.register(STUB_TENANT));
+    }
+
+    assertEquals(1, DBTestUtil.countAllNotes(vertx));
+  }
+
+  private Note createNote() {
+    Note note = Json.decodeValue(NOTE_2, Note.class).withId(UUID.randomUUID().toString());
+    postNoteWithOk(Json.encode(note), USER8);
+    return note;
+  }
+
+  private void unassign(Note note) {
+    NoteLinksPut request = new NoteLinksPut().withNotes(Collections.singletonList(
+      new NoteLinkPut().withId(note.getId()).withStatus(NoteLinkPut.Status.UNASSIGNED)));
+    putWithNoContent(NOTE_LINKS_PATH, Json.encode(request), USER8);
+  }
+
+  private <T> T join(Future<T> future) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    future.setHandler(event -> {
+      if (event.succeeded()) {
+        result.complete(event.result());
+      } else {
+        result.completeExceptionally(event.cause());
+      }
+    });
+    return result.join();
+  }
+}
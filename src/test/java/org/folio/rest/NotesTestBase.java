@@ -19,6 +19,11 @@ import org.folio.test.util.TestBase;
 
 public class NotesTestBase extends TestBase {
 
+  static {
+    // tests change notes directly in the database, cached notes would not be evicted until the change log is read
+    System.setProperty("note.cache.max.size", "0");
+  }
+
   protected static final Header TENANT_HEADER = new Header(XOkapiHeaders.TENANT, STUB_TENANT);
   protected static final Header INCORRECT_HEADER = new Header(XOkapiHeaders.TENANT, "wrong");
 
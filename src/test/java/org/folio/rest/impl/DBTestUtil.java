@@ -19,6 +19,7 @@ public class DBTestUtil {
   private static final String JSONB_COLUMN = "jsonb";
   private static final String NOTE_TYPE_TABLE = "note_type";
   private static final String NOTE_TABLE = "note_data";
+  private static final String NOTE_CHANGE_LOG_TABLE = "note_change_log";
 
   private DBTestUtil() {
   }
@@ -84,4 +85,100 @@ public class DBTestUtil {
   public static void deleteAllNotes(Vertx vertx) {
     deleteFromTable(vertx, getNoteTableName(STUB_TENANT));
   }
+
+  /**
+   * Counts rows of the note table, including notes that are not visible through note views
+   */
+  public static int countAllNotes(Vertx vertx) {
+    CompletableFuture<Integer> future = new CompletableFuture<>();
+    PostgresClient.getInstance(vertx).select(
+      "SELECT count(*) FROM " + getNoteTableName(STUB_TENANT),
+      event -> future.complete(event.result().getResults().get(0).getInteger(0)));
+    return future.join();
+  }
+
+  public static int countAllChanges(Vertx vertx) {
+    CompletableFuture<Integer> future = new CompletableFuture<>();
+    PostgresClient.getInstance(vertx).select(
+      "SELECT count(*) FROM " + getNoteChangeLogTableName(STUB_TENANT),
+      event -> future.complete(event.result().getResults().get(0).getInteger(0)));
+    return future.join();
+  }
+
+  /**
+   * Moves dates of all changes the given number of days back
+   */
+  public static void ageAllChanges(Vertx vertx, int days) {
+    executeAll(vertx, "UPDATE " + getNoteChangeLogTableName(STUB_TENANT) +
+      " SET changed_date = changed_date - interval '" + days + " days'");
+  }
+
+  /**
+   * Deletes all changes together with position of the last change deleted by the module
+   */
+  public static void deleteAllChanges(Vertx vertx) {
+    deleteFromTable(vertx, getNoteChangeLogTableName(STUB_TENANT));
+    deleteFromTable(vertx, getNoteChangeLogTableName(STUB_TENANT) + "_pruned");
+  }
+
+  /**
+   * Changes title of the note in the database, like another instance of the module would
+   */
+  public static void updateNoteTitle(Vertx vertx, String id, String title) {
+    executeAll(vertx, "UPDATE " + getNoteTableName(STUB_TENANT) +
+      " SET jsonb = jsonb_set(jsonb, '{title}', to_jsonb('" + title + "'::text)) WHERE id = '" + id + "'");
+  }
+
+  /**
+   * Changes name of the note type in the database, like another instance of the module would
+   */
+  public static void updateNoteTypeName(Vertx vertx, String id, String name) {
+    executeAll(vertx, "UPDATE " + getNoteTypesTableName(STUB_TENANT) +
+      " SET jsonb = jsonb_set(jsonb, '{name}', to_jsonb('" + name + "'::text)) WHERE id = '" + id + "'");
+  }
+
+  private static String getNoteChangeLogTableName(String tenantId) {
+    return PostgresClient.convertToPsqlStandard(tenantId) + "." + NOTE_CHANGE_LOG_TABLE;
+  }
+
+  /**
+   * Makes the first updates of notes fail with deadlock_detected error. Attempts are counted by a sequence,
+   * so they are not rolled back together with the failed update
+   */
+  public static void failNoteUpdates(Vertx vertx, int failures) {
+    String schema = PostgresClient.convertToPsqlStandard(STUB_TENANT);
+    executeAll(vertx,
+      "CREATE SEQUENCE " + schema + ".test_note_update_attempts",
+      "CREATE FUNCTION " + schema + ".test_fail_note_update() RETURNS TRIGGER AS $$ " +
+        "BEGIN " +
+        "IF nextval('" + schema + ".test_note_update_attempts') <= " + failures + " THEN " +
+        "RAISE EXCEPTION 'Test deadlock' USING ERRCODE = 'deadlock_detected'; " +
+        "END IF; " +
+        "RETURN NEW; " +
+        "END; $$ LANGUAGE plpgsql",
+      "CREATE TRIGGER test_fail_note_update BEFORE UPDATE ON " + getNoteTableName(STUB_TENANT) +
+        " FOR EACH ROW EXECUTE PROCEDURE " + schema + ".test_fail_note_update()");
+  }
+
+  public static void stopFailingNoteUpdates(Vertx vertx) {
+    String schema = PostgresClient.convertToPsqlStandard(STUB_TENANT);
+    executeAll(vertx,
+      "DROP TRIGGER IF EXISTS test_fail_note_update ON " + getNoteTableName(STUB_TENANT),
+      "DROP FUNCTION IF EXISTS " + schema + ".test_fail_note_update()",
+      "DROP SEQUENCE IF EXISTS " + schema + ".test_note_update_attempts");
+  }
+
+  private static void executeAll(Vertx vertx, String... statements) {
+    for (String statement : statements) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      PostgresClient.getInstance(vertx).execute(statement, event -> {
+        if (event.failed()) {
+          future.completeExceptionally(event.cause());
+        } else {
+          future.complete(null);
+        }
+      });
+      future.join();
+    }
+  }
 }
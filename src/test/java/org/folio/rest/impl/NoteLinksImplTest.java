@@ -7,9 +7,11 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import static org.folio.test.util.TestUtil.STUB_TENANT;
 import static org.folio.test.util.TestUtil.readFile;
 import static org.folio.util.NoteTestData.NOTE_2;
 import static org.folio.util.NoteTestData.NOTE_TYPE2_ID;
@@ -26,6 +28,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.matching.EqualToPattern;
@@ -41,13 +44,23 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import org.folio.links.LinkUpdateMetrics;
 import org.folio.rest.NotesTestBase;
+import org.folio.rest.jaxrs.model.EntityNoteCount;
+import org.folio.rest.jaxrs.model.EntityNoteLinksPut;
 import org.folio.rest.jaxrs.model.Link;
+import org.folio.rest.jaxrs.model.LinkedEntity;
 import org.folio.rest.jaxrs.model.Note;
 import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteCounts;
+import org.folio.rest.jaxrs.model.NoteCountsPost;
 import org.folio.rest.jaxrs.model.NoteLinkPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchPut;
+import org.folio.rest.jaxrs.model.NoteLinksBatchResult;
 import org.folio.rest.jaxrs.model.NoteLinksPut;
+import org.folio.rest.jaxrs.model.NoteType;
 import org.folio.spring.SpringContextUtil;
 import org.folio.test.util.TestBase;
 
@@ -58,10 +71,15 @@ public class NoteLinksImplTest extends NotesTestBase {
   private static final int DEFAULT_LINK_AMOUNT = 1;
   private static final String INVALID_ID = "invalid id";
   private static final String NOTE_LINKS_PATH = "note-links/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID;
+  private static final String NOTE_LINKS_BATCH_PATH = "note-links/batch";
+  private static final String NOTE_LINKS_COUNTS_PATH = "note-links/counts";
   private static final String NON_EXISTING_ID = "11111111111111";
   private static final String DOMAIN = "eholdings";
   private static final String NON_EXISTING_DOMAIN = "nonExisting";
 
+  @Autowired
+  private LinkUpdateMetrics linkUpdateMetrics;
+
   @BeforeClass
   public static void setUpClass(TestContext context) {
     TestBase.setUpClass(context);
@@ -159,6 +177,114 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertEquals(PACKAGE_ID, thirdResultNote.getLinks().get(DEFAULT_LINK_INDEX + 1).getId());
   }
 
+  @Test
+  public void shouldUnassignNoteThatIsBothAssignedAndUnassignedInOneRequest() {
+    Note firstNote = createNote();
+    Note secondNote = createNote();
+    createLinks(firstNote.getId());
+
+    NoteLinksPut putRequest = new NoteLinksPut()
+      .withNotes(
+        Arrays.asList(
+          createNoteLink(firstNote.getId(), NoteLinkPut.Status.ASSIGNED),
+          createNoteLink(firstNote.getId(), NoteLinkPut.Status.UNASSIGNED),
+          createNoteLink(secondNote.getId(), NoteLinkPut.Status.ASSIGNED),
+          createNoteLink(secondNote.getId(), NoteLinkPut.Status.UNASSIGNED))
+      );
+    putLinks(putRequest);
+
+    List<Note> notes = getNotes();
+
+    assertEquals(DEFAULT_LINK_AMOUNT, getNoteById(notes, firstNote.getId()).getLinks().size());
+    assertEquals(DEFAULT_LINK_AMOUNT, getNoteById(notes, secondNote.getId()).getLinks().size());
+  }
+
+  @Test
+  public void shouldReturnNumberOfNotesOfEveryEntity() {
+    Note firstNote = createNote();
+    Note secondNote = createNote();
+    createNote();
+    createLinks(firstNote.getId(), secondNote.getId());
+    removeLinks(secondNote.getId());
+
+    NoteCountsPost request = new NoteCountsPost()
+      .withEntities(Arrays.asList(
+        new LinkedEntity().withDomain(DOMAIN).withType(PACKAGE_TYPE).withId(PACKAGE_ID),
+        new LinkedEntity().withDomain(DOMAIN).withType(PACKAGE_TYPE).withId(PACKAGE_ID2),
+        new LinkedEntity().withDomain(NON_EXISTING_DOMAIN).withType(PACKAGE_TYPE).withId(PACKAGE_ID2)))
+      .withByNoteType(true);
+
+    List<EntityNoteCount> counts = postWithStatus(NOTE_LINKS_COUNTS_PATH, Json.encode(request), 200, USER8)
+      .as(NoteCounts.class)
+      .getEntities();
+
+    assertEquals(3, counts.size());
+    assertEquals(PACKAGE_ID, counts.get(0).getEntity().getId());
+    assertEquals(1, (int) counts.get(0).getCount());
+    assertEquals(3, (int) counts.get(1).getCount());
+    assertEquals(1, counts.get(1).getNoteTypes().size());
+    assertEquals(NOTE_TYPE2_ID, counts.get(1).getNoteTypes().get(0).getTypeId());
+    assertEquals(3, (int) counts.get(1).getNoteTypes().get(0).getCount());
+    assertEquals(0, (int) counts.get(2).getCount());
+  }
+
+  @Test
+  public void shouldNotRepeatCountsOfEntityRequestedTwice() {
+    Note note = createNote();
+    createLinks(note.getId());
+
+    LinkedEntity entity = new LinkedEntity().withDomain(DOMAIN).withType(PACKAGE_TYPE).withId(PACKAGE_ID);
+    NoteCountsPost request = new NoteCountsPost()
+      .withEntities(Arrays.asList(entity, entity))
+      .withByNoteType(true);
+
+    List<EntityNoteCount> counts = postWithStatus(NOTE_LINKS_COUNTS_PATH, Json.encode(request), 200, USER8)
+      .as(NoteCounts.class)
+      .getEntities();
+
+    assertEquals(2, counts.size());
+    for (EntityNoteCount count : counts) {
+      assertEquals(1, (int) count.getCount());
+      assertEquals(1, count.getNoteTypes().size());
+      assertEquals(1, (int) count.getNoteTypes().get(0).getCount());
+    }
+  }
+
+  @Test
+  public void shouldRetryUpdateOfLinksAfterDeadlock() {
+    Note note = createNote();
+    long retriesBefore = linkUpdateMetrics.getMetrics(STUB_TENANT).getRetries();
+
+    DBTestUtil.failNoteUpdates(vertx, 1);
+    try {
+      createLinks(note.getId());
+    } finally {
+      DBTestUtil.stopFailingNoteUpdates(vertx);
+    }
+
+    Note resultNote = getNoteById(getNotes(), note.getId());
+    assertEquals(DEFAULT_LINK_AMOUNT + 1, resultNote.getLinks().size());
+    assertEquals(retriesBefore + 1, linkUpdateMetrics.getMetrics(STUB_TENANT).getRetries());
+  }
+
+  @Test
+  public void shouldReturn409WhenUpdateOfLinksFailsAfterAllRetries() {
+    Note note = createNote();
+    long failedRetriesBefore = linkUpdateMetrics.getMetrics(STUB_TENANT).getFailedRetries();
+
+    DBTestUtil.failNoteUpdates(vertx, Integer.MAX_VALUE);
+    try {
+      String putBody = Json.encode(createPutLinksRequest(NoteLinkPut.Status.ASSIGNED, note.getId()));
+      putWithStatus(NOTE_LINKS_PATH, putBody, 409, USER8);
+    } finally {
+      DBTestUtil.stopFailingNoteUpdates(vertx);
+    }
+
+    Note resultNote = getNoteById(getNotes(), note.getId());
+    assertEquals(DEFAULT_LINK_AMOUNT, resultNote.getLinks().size());
+    assertEquals(failedRetriesBefore + 1, linkUpdateMetrics.getMetrics(STUB_TENANT).getFailedRetries());
+  }
+
   @Test
   public void shouldNotAddLinkForTheSecondTime() {
     Note note = createNote();
@@ -241,6 +367,155 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertEquals(2, (int) notes.getTotalRecords());
   }
 
+  @Test
+  public void shouldReturnTotalRecordsWhenOffsetIsBeyondLastNote() {
+    createNote();
+    createNote();
+
+    NoteCollection notes = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?offset=5")
+      .as(NoteCollection.class);
+
+    assertEquals(0, notes.getNotes().size());
+    assertEquals(2, (int) notes.getTotalRecords());
+  }
+
+  @Test
+  public void shouldNotReturnTotalRecordsWhenTotalRecordsIsNone() {
+    createNote();
+    createNote();
+
+    NoteCollection notes = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?limit=1&totalRecords=none")
+      .as(NoteCollection.class);
+
+    assertEquals(1, notes.getNotes().size());
+    assertNull(notes.getTotalRecords());
+  }
+
+  @Test
+  public void shouldCountNotesExactlyWhenEstimatedTotalIsBelowThreshold() {
+    createNote();
+    createNote();
+
+    NoteCollection notes = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?limit=1&totalRecords=estimated")
+      .as(NoteCollection.class);
+
+    assertEquals(1, notes.getNotes().size());
+    assertEquals(2, (int) notes.getTotalRecords());
+    assertEquals("exact", notes.getTotalRecordsMode());
+  }
+
+  @Test
+  public void shouldUpdateLinksOfManyEntitiesByBatch() {
+    Note firstNote = createNote();
+    Note secondNote = createNote();
+    createLinks(firstNote.getId());
+
+    NoteLinksBatchPut batch = new NoteLinksBatchPut().withEntities(Arrays.asList(
+      new EntityNoteLinksPut()
+        .withLink(new Link().withType(PACKAGE_TYPE).withId(PACKAGE_ID))
+        .withNotes(Arrays.asList(
+          createNoteLink(firstNote.getId(), NoteLinkPut.Status.UNASSIGNED),
+          createNoteLink(secondNote.getId(), NoteLinkPut.Status.ASSIGNED))),
+      new EntityNoteLinksPut()
+        .withLink(new Link().withType(PACKAGE_TYPE).withId(PACKAGE_ID2))
+        .withNotes(Arrays.asList(
+          createNoteLink(firstNote.getId(), NoteLinkPut.Status.ASSIGNED),
+          createNoteLink(secondNote.getId(), NoteLinkPut.Status.ASSIGNED)))));
+
+    NoteLinksBatchResult result = putWithStatus(NOTE_LINKS_BATCH_PATH, Json.encode(batch), 200, USER8)
+      .as(NoteLinksBatchResult.class);
+
+    assertEquals(2, result.getEntities().size());
+    assertEquals(PACKAGE_ID, result.getEntities().get(0).getLink().getId());
+    assertEquals(1, (int) result.getEntities().get(0).getAssigned());
+    assertEquals(1, (int) result.getEntities().get(0).getUnassigned());
+    assertEquals(PACKAGE_ID2, result.getEntities().get(1).getLink().getId());
+    assertEquals(2, (int) result.getEntities().get(1).getAssigned());
+    assertEquals(0, (int) result.getEntities().get(1).getUnassigned());
+
+    List<Note> notes = getWithOk("/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID2
+      + "?status=ASSIGNED")
+      .as(NoteCollection.class)
+      .getNotes();
+    assertEquals(2, notes.size());
+    Note updatedFirstNote = getNoteById(notes, firstNote.getId());
+    assertFalse(updatedFirstNote.getLinks().stream().anyMatch(link -> PACKAGE_ID.equals(link.getId())));
+  }
+
+  @Test
+  public void shouldRemoveOneOccurrenceOfDuplicateLinkBothByBatchAndByEntity() {
+    Link duplicateLink = new Link().withType(PACKAGE_TYPE).withId(PACKAGE_ID);
+    Note byEntity = getNote();
+    byEntity.getLinks().addAll(Arrays.asList(duplicateLink, duplicateLink));
+    postNoteWithOk(Json.encode(byEntity), USER8);
+    Note byBatch = getNote();
+    byBatch.getLinks().addAll(Arrays.asList(duplicateLink, duplicateLink));
+    postNoteWithOk(Json.encode(byBatch), USER8);
+
+    removeLinks(byEntity.getId());
+    NoteLinksBatchPut batch = new NoteLinksBatchPut().withEntities(Collections.singletonList(
+      new EntityNoteLinksPut()
+        .withLink(duplicateLink)
+        .withNotes(Collections.singletonList(createNoteLink(byBatch.getId(), NoteLinkPut.Status.UNASSIGNED)))));
+    putWithStatus(NOTE_LINKS_BATCH_PATH, Json.encode(batch), 200, USER8);
+
+    List<Note> notes = getNotes();
+    List<String> linksByEntity = getNoteById(notes, byEntity.getId()).getLinks().stream()
+      .map(Link::getId).collect(Collectors.toList());
+    List<String> linksByBatch = getNoteById(notes, byBatch.getId()).getLinks().stream()
+      .map(Link::getId).collect(Collectors.toList());
+    assertEquals(Arrays.asList(PACKAGE_ID2, PACKAGE_ID), linksByEntity);
+    assertEquals(linksByEntity, linksByBatch);
+  }
+
+  @Test
+  public void shouldReturnNextPageByCursor() {
+    createNote();
+    createNote();
+    createNote();
+
+    String resourcePath = "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?limit=2";
+    NoteCollection firstPage = getWithOk(resourcePath).as(NoteCollection.class);
+    NoteCollection secondPage = getWithOk(resourcePath + "&cursor=" + firstPage.getNextCursor()).as(NoteCollection.class);
+
+    assertEquals(2, firstPage.getNotes().size());
+    assertEquals(3, (int) firstPage.getTotalRecords());
+    assertEquals(1, secondPage.getNotes().size());
+    assertNull(secondPage.getTotalRecords());
+    assertNull(secondPage.getNextCursor());
+    List<String> firstPageIds = firstPage.getNotes().stream().map(Note::getId).collect(Collectors.toList());
+    assertFalse(firstPageIds.contains(secondPage.getNotes().get(0).getId()));
+  }
+
+  @Test
+  public void shouldNotReturnNextCursorWhenLastPageIsFull() {
+    createNote();
+    createNote();
+
+    NoteCollection page = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?limit=2")
+      .as(NoteCollection.class);
+
+    assertEquals(2, page.getNotes().size());
+    assertNull(page.getNextCursor());
+  }
+
+  @Test
+  public void shouldNotReturnNextCursorWhenLastPageOrderedByStatusIsFull() {
+    createNote();
+    createNote();
+
+    NoteCollection page = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/123-456789?limit=2&orderBy=status")
+      .as(NoteCollection.class);
+
+    assertEquals(2, page.getNotes().size());
+    assertNull(page.getNextCursor());
+  }
+
   @Test
   public void shouldReturnListOfNotesWithOffset() {
     createNote();
@@ -293,6 +568,23 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertEquals(1, notes.size());
   }
 
+  @Test
+  public void shouldReturnAssignedNoteWhenLinkIsAddedByNoteUpdate() {
+    Note note = createNote();
+    Note updatedNote = note.withLinks(Arrays.asList(
+      note.getLinks().get(DEFAULT_LINK_INDEX),
+      new Link().withId(PACKAGE_ID).withType(PACKAGE_TYPE)));
+    putWithNoContent("/notes/" + note.getId(), Json.encode(updatedNote), USER8);
+
+    List<Note> notes = getWithOk("/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID
+      + "?status=ASSIGNED")
+      .as(NoteCollection.class)
+      .getNotes();
+
+    assertEquals(1, notes.size());
+    assertEquals(note.getId(), notes.get(0).getId());
+  }
+
   @Test
   public void shouldReturnListOfNotesSortedByTitleAsc() {
     Note firstNote = getNote().withTitle("ABC");
@@ -398,6 +690,21 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertEquals(firstNote.getTitle(), notes.get(0).getTitle());
   }
 
+  @Test
+  public void shouldReturnListOfNotesSearchedByTitleIgnoringAccentsAndCase() {
+    Note firstNote = getNote().withTitle("Title Émile");
+    Note secondNote = getNote().withTitle("Title Emil");
+    postNoteWithOk(Json.encode(firstNote), USER8);
+    postNoteWithOk(Json.encode(secondNote), USER8);
+    List<Note> notes = getWithOk("/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID
+      + "?title=emile")
+      .as(NoteCollection.class)
+      .getNotes();
+
+    assertEquals(1, notes.size());
+    assertEquals(firstNote.getTitle(), notes.get(0).getTitle());
+  }
+
   @Test
   public void shouldInterpretSpecialRegexCharactersLiterally() {
     Note firstNote = getNote().withTitle("a[abc1}{]z");
@@ -517,6 +824,27 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertEquals(PACKAGE_TYPE, firstResultNote.getLinks().get(1).getType());
   }
 
+  @Test
+  public void shouldReturnPagesOfNotesOrderedByStatusAcrossAssignedAndUnassigned() {
+    Note firstNoteWithAssignedLink = createNote();
+    Note secondNoteWithAssignedLink = createNote();
+    createNote();
+    createNote();
+    createLinks(firstNoteWithAssignedLink.getId(), secondNoteWithAssignedLink.getId());
+
+    String resourcePath = "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID
+      + "?order=asc&orderBy=status&limit=2";
+    NoteCollection secondPage = getWithOk(resourcePath + "&offset=1").as(NoteCollection.class);
+    NoteCollection lastPage = getWithOk(resourcePath + "&offset=3").as(NoteCollection.class);
+
+    assertEquals(2, secondPage.getNotes().size());
+    assertEquals(2, secondPage.getNotes().get(0).getLinks().size());
+    assertEquals(1, secondPage.getNotes().get(1).getLinks().size());
+    assertEquals(4, (int) secondPage.getTotalRecords());
+    assertEquals(1, lastPage.getNotes().size());
+    assertEquals(1, lastPage.getNotes().get(0).getLinks().size());
+  }
+
   @Test
   public void shouldReturnListOfNotesWithOrderInUpper() {
     Note firsNoteWithAssignedLink = createNote();
@@ -625,6 +953,44 @@ public class NoteLinksImplTest extends NotesTestBase {
 
   }
 
+  @Test
+  public void shouldReturnNoteListWhenNoteTypeNameHasArraySpecialCharacters() {
+    String typeId = UUID.randomUUID().toString();
+    String typeName = "Type \"quoted\", with \\ backslash";
+    DBTestUtil.insertNoteType(vertx, typeId, STUB_TENANT, Json.encode(new NoteType().withId(typeId).withName(typeName)));
+
+    createNote();
+    final Note note = getNote().withTypeId(typeId);
+    postNoteWithOk(Json.encode(note), USER8);
+
+    List<Note> notes = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID2 +
+        "?noteType=" + typeName + "&noteType=" + NOTE_TYPE_NAME + "&order=ASC&orderBy=status")
+      .as(NoteCollection.class)
+      .getNotes();
+
+    assertThat(notes.size(), equalTo(1));
+    assertThat(notes.get(0).getTypeId(), equalTo(typeId));
+  }
+
+  @Test
+  public void shouldAssignAndUnassignManyNotesInOneRequest() {
+    List<String> ids = IntStream.range(0, 30)
+      .mapToObj(i -> createNote().getId())
+      .collect(Collectors.toList());
+
+    createLinks(ids.toArray(new String[0]));
+    removeLinks(ids.subList(0, 10).toArray(new String[0]));
+
+    NoteCollection assigned = getWithOk(
+      "/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE + "/id/" + PACKAGE_ID + "?status=ASSIGNED&limit=100")
+      .as(NoteCollection.class);
+
+    assertEquals(20, (int) assigned.getTotalRecords());
+    assertThat(assigned.getNotes().stream().map(Note::getId).collect(Collectors.toList()),
+      containsInAnyOrder(ids.subList(10, 30).toArray()));
+  }
+
   @Test
   public void shouldReturn400WithErrorMessageWrongOrder() {
     Note firsNoteWithAssignedLink = createNote();
@@ -638,6 +1004,24 @@ public class NoteLinksImplTest extends NotesTestBase {
     assertThat(response, containsString("Order is incorrect"));
   }
 
+  @Test
+  public void shouldReturn400WithErrorMessageWrongTotalRecords() {
+    final String response = getWithStatus("/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE
+      + "/id/" + PACKAGE_ID + "?totalRecords=wrong", 400)
+      .asString();
+
+    assertThat(response, containsString("TotalRecords is incorrect"));
+  }
+
+  @Test
+  public void shouldReturn400WithErrorMessageWrongCursor() {
+    final String response = getWithStatus("/note-links/domain/" + DOMAIN + "/type/" + PACKAGE_TYPE
+      + "/id/" + PACKAGE_ID + "?cursor=wrong", 400)
+      .asString();
+
+    assertThat(response, containsString("Cursor is incorrect"));
+  }
+
   @Test
   public void shouldReturn400WithErrorMessageWrongStatus() {
     Note firsNoteWithAssignedLink = createNote();
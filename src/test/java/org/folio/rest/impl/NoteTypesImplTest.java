@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
+import javax.ws.rs.core.HttpHeaders;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.matching.EqualToPattern;
@@ -51,14 +53,18 @@ import org.jeasy.random.randomizers.text.StringRandomizer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.NotesTestBase;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Note;
 import org.folio.rest.jaxrs.model.NoteType;
+import org.folio.rest.jaxrs.model.NoteTypeCollection;
 import org.folio.rest.jaxrs.model.NoteTypeUsage;
 import org.folio.spring.SpringContextUtil;
+import org.folio.type.NoteTypeRepository;
 
 @RunWith(VertxUnitRunner.class)
 public class NoteTypesImplTest extends NotesTestBase {
@@ -78,6 +84,9 @@ public class NoteTypesImplTest extends NotesTestBase {
     //new RegexPattern("/configurations/entries.+NOTES.+note\\.types\\.number\\.limit.*"), true);
     new RegexPattern("/configurations/entries.*");
 
+  @Autowired
+  private NoteTypeRepository noteTypeRepository;
+
   private ObjectMapper mapper;
   private EasyRandom noteTypeRandom;
   private EasyRandom noteRandom;
@@ -201,6 +210,62 @@ public class NoteTypesImplTest extends NotesTestBase {
     }
   }
 
+  @Test
+  public void shouldReturn200WithNoteTypeCollectionWithoutTotalRecords() throws IOException, URISyntaxException {
+    try {
+      final String stubNoteType = readFile("post_note_type.json");
+
+      DBTestUtil.insertNoteType(vertx, STUB_NOTE_TYPE_ID, STUB_TENANT, stubNoteType);
+
+      NoteTypeCollection noteTypes = getWithOk(NOTE_TYPES_ENDPOINT + "?totalRecords=none").as(NoteTypeCollection.class);
+      assertEquals(1, noteTypes.getNoteTypes().size());
+      assertNull(noteTypes.getTotalRecords());
+
+      noteTypes = getWithOk(NOTE_TYPES_ENDPOINT + "?totalRecords=estimated").as(NoteTypeCollection.class);
+      assertEquals(1, (int) noteTypes.getTotalRecords());
+      assertEquals("exact", noteTypes.getTotalRecordsMode());
+    } finally {
+      DBTestUtil.deleteAllNoteTypes(vertx);
+    }
+  }
+
+  @Test
+  public void shouldEstimateNoteTypesWhenEstimatedTotalIsAboveThreshold() throws IOException, URISyntaxException {
+    Object estimateThreshold = ReflectionTestUtils.getField(noteTypeRepository, "estimateThreshold");
+    ReflectionTestUtils.setField(noteTypeRepository, "estimateThreshold", 0);
+    try {
+      final String stubNoteType = readFile("post_note_type.json");
+
+      DBTestUtil.insertNoteType(vertx, STUB_NOTE_TYPE_ID, STUB_TENANT, stubNoteType);
+
+      NoteTypeCollection noteTypes = getWithOk(NOTE_TYPES_ENDPOINT + "?totalRecords=estimated")
+        .as(NoteTypeCollection.class);
+      assertEquals(1, noteTypes.getNoteTypes().size());
+      assertEquals("estimated", noteTypes.getTotalRecordsMode());
+    } finally {
+      ReflectionTestUtils.setField(noteTypeRepository, "estimateThreshold", estimateThreshold);
+      DBTestUtil.deleteAllNoteTypes(vertx);
+    }
+  }
+
+  @Test
+  public void shouldReturn304WhenNoteTypesAreNotModified() throws IOException, URISyntaxException {
+    try {
+      final String stubNoteType = readFile("post_note_type.json");
+
+      DBTestUtil.insertNoteType(vertx, STUB_NOTE_TYPE_ID, STUB_TENANT, stubNoteType);
+
+      String collectionTag = getWithOk(NOTE_TYPES_ENDPOINT).header(HttpHeaders.ETAG);
+      getWithIfNoneMatch(NOTE_TYPES_ENDPOINT, collectionTag, HttpStatus.SC_NOT_MODIFIED);
+
+      String itemTag = getWithOk(NOTE_TYPES_ENDPOINT + "/" + STUB_NOTE_TYPE_ID).header(HttpHeaders.ETAG);
+      getWithIfNoneMatch(NOTE_TYPES_ENDPOINT + "/" + STUB_NOTE_TYPE_ID, itemTag, HttpStatus.SC_NOT_MODIFIED);
+      getWithIfNoneMatch(NOTE_TYPES_ENDPOINT + "/" + STUB_NOTE_TYPE_ID, collectionTag, SC_OK);
+    } finally {
+      DBTestUtil.deleteAllNoteTypes(vertx);
+    }
+  }
+
   @Test
   public void shouldReturn200WithLimitAndOffsetSet() throws IOException, URISyntaxException {
     try {
@@ -632,4 +697,14 @@ public class NoteTypesImplTest extends NotesTestBase {
     return noteRandom.nextObject(Note.class);
   }
 
+  private void getWithIfNoneMatch(String path, String etag, int expectedStatus) {
+    RestAssured.given()
+      .spec(givenWithUrl())
+      .header(TENANT_HEADER).header(new Header(HttpHeaders.IF_NONE_MATCH, etag))
+      .when()
+      .get(path)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(expectedStatus);
+  }
 }
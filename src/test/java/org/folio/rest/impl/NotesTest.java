@@ -3,8 +3,11 @@ package org.folio.rest.impl;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static org.apache.http.HttpStatus.SC_BAD_REQUEST;
+import static org.apache.http.HttpStatus.SC_CREATED;
 import static org.apache.http.HttpStatus.SC_NOT_FOUND;
+import static org.apache.http.HttpStatus.SC_NOT_MODIFIED;
 import static org.apache.http.HttpStatus.SC_NO_CONTENT;
+import static org.apache.http.HttpStatus.SC_OK;
 import static org.apache.http.HttpStatus.SC_UNPROCESSABLE_ENTITY;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
@@ -14,6 +17,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import static org.folio.test.util.TestUtil.readFile;
@@ -28,6 +32,7 @@ import static org.folio.util.NoteTestData.NOTE_TYPE2_NAME;
 import static org.folio.util.NoteTestData.NOTE_TYPE_ID;
 import static org.folio.util.NoteTestData.NOTE_TYPE_NAME;
 import static org.folio.util.NoteTestData.PACKAGE_ID;
+import static org.folio.util.NoteTestData.PACKAGE_ID2;
 import static org.folio.util.NoteTestData.PACKAGE_TYPE;
 import static org.folio.util.NoteTestData.UPDATE_NOTE_2_REQUEST_WITH_NO_LINKS;
 import static org.folio.util.NoteTestData.UPDATE_NOTE_5_REQUEST_WITH_NON_EXISTING_TYPE_ID;
@@ -37,13 +42,21 @@ import static org.folio.util.NoteTestData.USER19;
 import static org.folio.util.NoteTestData.USER8;
 
 import java.util.Objects;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.core.HttpHeaders;
 
 import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.matching.EqualToPattern;
 import com.github.tomakehurst.wiremock.matching.UrlPathPattern;
 
 import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
 import io.restassured.http.Header;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.unit.TestContext;
@@ -56,14 +69,23 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import org.folio.note.NoteQueryMetrics;
+import org.folio.note.NoteRepository;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.rest.NotesTestBase;
 import org.folio.rest.jaxrs.model.Error;
 import org.folio.rest.jaxrs.model.Errors;
 import org.folio.rest.jaxrs.model.Metadata;
 import org.folio.rest.jaxrs.model.Note;
+import org.folio.rest.jaxrs.model.NoteBatchResult;
+import org.folio.rest.jaxrs.model.NoteChange;
+import org.folio.rest.jaxrs.model.NoteChangeCollection;
 import org.folio.rest.jaxrs.model.NoteCollection;
+import org.folio.rest.jaxrs.model.NoteImportResult;
+import org.folio.spring.SpringContextUtil;
 import org.folio.test.util.TestBase;
 
 /**
@@ -84,6 +106,16 @@ public class NotesTest extends NotesTestBase {
   // One that is not found in the mock data
   private static final String NOT_JSON = "This is not json";
   private static final String NOTES_PATH = "/notes";
+  private static final String NOTES_CHANGES_PATH = "/notes/changes";
+  private static final String NOTES_IMPORT_PATH = "/notes/import";
+  private static final String NOTES_EXPORT_PATH = "/notes/export";
+  private static final String NOTES_BATCH_PATH = "/notes/batch";
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  @Autowired
+  private NoteQueryMetrics queryMetrics;
+  @Autowired
+  private NoteRepository noteRepository;
 
   @BeforeClass
   public static void setUpClass(TestContext context) {
@@ -99,6 +131,7 @@ public class NotesTest extends NotesTestBase {
 
   @Before
   public void setUp() throws Exception {
+    SpringContextUtil.autowireDependenciesFromFirstContext(this, vertx);
     stubFor(
       get(new UrlPathPattern(new EqualToPattern("/users/99999999-9999-4999-9999-999999999999"), false))
         .willReturn(new ResponseDefinitionBuilder()
@@ -254,6 +287,192 @@ public class NotesTest extends NotesTestBase {
     )));
   }
 
+  @Test
+  public void shouldReturnTotalRecordsWhenOffsetIsBeyondLastNote() {
+    postNoteWithOk(NOTE_1, USER9);
+    postNoteWithOk(NOTE_2, USER8);
+
+    NoteCollection notes = getWithOk(NOTES_PATH + "?offset=5").as(NoteCollection.class);
+
+    assertEquals(0, notes.getNotes().size());
+    assertEquals(2, (int) notes.getTotalRecords());
+  }
+
+  @Test
+  public void shouldFindNotesByDomainAndLinkIdSortedByTitle() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+
+    NoteCollection notes = getWithOk(NOTES_PATH + "?query=domain=" + DOMAIN + " and linkIds=" + PACKAGE_ID2
+      + " sortby title/sort.descending").as(NoteCollection.class);
+
+    assertEquals(2, (int) notes.getTotalRecords());
+    assertEquals("things", notes.getNotes().get(0).getTitle());
+    assertEquals("testing", notes.getNotes().get(1).getTitle());
+  }
+
+  @Test
+  public void shouldFindNotesByMixedCaseDomainAndLinkIdLikeGeneralQuery() {
+    String linkId = "Résumé-123";
+    JsonObject note = new JsonObject(NOTE_2)
+      .put("links", new JsonArray().add(new JsonObject().put("id", linkId).put("type", PACKAGE_TYPE)));
+    postNoteWithOk(note.encode(), USER8);
+    postNoteWithOk(NOTE_3, USER9);
+
+    long fastPathQueries = queryMetrics.getFastPathQueries();
+    long generalPathQueries = queryMetrics.getGeneralPathQueries();
+    NoteCollection notes = getWithOk(NOTES_PATH + "?query=domain==EHoldings and linkIds==RESUME-123")
+      .as(NoteCollection.class);
+    // "=" is left to CQL2PgJSON, the whole value is the only phrase of its words here
+    NoteCollection generalNotes = getWithOk(NOTES_PATH + "?query=domain=EHoldings and linkIds=RESUME-123")
+      .as(NoteCollection.class);
+
+    assertEquals(fastPathQueries + 1, queryMetrics.getFastPathQueries());
+    assertEquals(generalPathQueries + 1, queryMetrics.getGeneralPathQueries());
+    assertEquals(1, (int) notes.getTotalRecords());
+    assertEquals(linkId, notes.getNotes().get(0).getLinks().get(0).getId());
+    assertEquals(1, (int) generalNotes.getTotalRecords());
+    assertEquals(linkId, generalNotes.getNotes().get(0).getLinks().get(0).getId());
+  }
+
+  @Test
+  public void shouldFindNotesByLinkIdInAnyCase() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+    String linkId = "Ab-" + PACKAGE_ID2;
+    JsonObject note = new JsonObject(NOTE_4)
+      .put("links", new JsonArray().add(new JsonObject().put("id", linkId).put("type", PACKAGE_TYPE)));
+    postNoteWithOk(note.encode(), USER8);
+
+    NoteCollection notes = getWithOk(NOTES_PATH + "?query=linkIds==aB-" + PACKAGE_ID2).as(NoteCollection.class);
+
+    assertEquals(1, (int) notes.getTotalRecords());
+    assertEquals(linkId, notes.getNotes().get(0).getLinks().get(0).getId());
+  }
+
+  @Test
+  public void shouldFindNotesByPartOfHyphenatedLinkIdOnlyThroughGeneralPath() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+    String partOfLinkId = PACKAGE_ID2.substring(0, PACKAGE_ID2.indexOf('-'));
+
+    long fastPathQueries = queryMetrics.getFastPathQueries();
+    long generalPathQueries = queryMetrics.getGeneralPathQueries();
+    NoteCollection wordMatched = getWithOk(NOTES_PATH + "?query=linkIds=" + partOfLinkId).as(NoteCollection.class);
+    // sorting by content is left to CQL2PgJSON, so it runs the same condition through the general path
+    NoteCollection generalNotes = getWithOk(NOTES_PATH + "?query=linkIds=" + partOfLinkId + " sortby content")
+      .as(NoteCollection.class);
+    NoteCollection exactlyMatched = getWithOk(NOTES_PATH + "?query=linkIds==" + partOfLinkId)
+      .as(NoteCollection.class);
+
+    assertEquals(fastPathQueries + 1, queryMetrics.getFastPathQueries());
+    assertEquals(generalPathQueries + 2, queryMetrics.getGeneralPathQueries());
+    assertEquals(2, (int) wordMatched.getTotalRecords());
+    assertEquals(wordMatched.getTotalRecords(), generalNotes.getTotalRecords());
+    assertEquals(0, (int) exactlyMatched.getTotalRecords());
+  }
+
+  @Test
+  public void shouldFindNotesByTypeIdAndCountThemWhenOffsetIsBeyondLastNote() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+
+    NoteCollection notes = getWithOk(NOTES_PATH + "?query=typeId=" + NOTE_TYPE2_ID).as(NoteCollection.class);
+    assertEquals(1, (int) notes.getTotalRecords());
+    assertEquals("things", notes.getNotes().get(0).getTitle());
+
+    notes = getWithOk(NOTES_PATH + "?query=linkIds=" + PACKAGE_ID2 + "&offset=5").as(NoteCollection.class);
+    assertEquals(0, notes.getNotes().size());
+    assertEquals(2, (int) notes.getTotalRecords());
+  }
+
+  @Test
+  public void shouldCountNotesExactlyWhenEstimatedTotalIsBelowThreshold() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+
+    NoteCollection notes = getWithOk(NOTES_PATH + "?query=linkIds=" + PACKAGE_ID2 + "&limit=1&totalRecords=estimated")
+      .as(NoteCollection.class);
+    assertEquals(1, notes.getNotes().size());
+    assertEquals(2, (int) notes.getTotalRecords());
+    assertEquals("exact", notes.getTotalRecordsMode());
+
+    notes = getWithOk(NOTES_PATH + "?query=title=things&totalRecords=none").as(NoteCollection.class);
+    assertEquals("things", notes.getNotes().get(0).getTitle());
+    assertNull(notes.getTotalRecords());
+    assertNull(notes.getTotalRecordsMode());
+  }
+
+  @Test
+  public void shouldEstimateNotesWhenEstimatedTotalIsAboveThreshold() {
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+
+    Object estimateThreshold = ReflectionTestUtils.getField(noteRepository, "estimateThreshold");
+    ReflectionTestUtils.setField(noteRepository, "estimateThreshold", 0);
+    try {
+      NoteCollection notes = getWithOk(NOTES_PATH + "?query=linkIds=" + PACKAGE_ID2 + "&limit=1&totalRecords=estimated")
+        .as(NoteCollection.class);
+      assertEquals(1, notes.getNotes().size());
+      assertEquals("estimated", notes.getTotalRecordsMode());
+      assertTrue(notes.getTotalRecords() > 0);
+    } finally {
+      ReflectionTestUtils.setField(noteRepository, "estimateThreshold", estimateThreshold);
+    }
+  }
+
+  @Test
+  public void shouldReadNotesPageLargerThanFetchSizeThroughCursor() {
+    postNoteWithOk(NOTE_1, USER9);
+    postNoteWithOk(NOTE_2, USER8);
+    postNoteWithOk(NOTE_3, USER9);
+    String path = NOTES_PATH + "?query=cql.allRecords=1 sortby title&limit=10";
+    NoteCollection selected = getWithOk(path).as(NoteCollection.class);
+
+    Object fetchSize = ReflectionTestUtils.getField(noteRepository, "fetchSize");
+    ReflectionTestUtils.setField(noteRepository, "fetchSize", 1);
+    try {
+      NoteCollection fetched = getWithOk(path).as(NoteCollection.class);
+      assertEquals(3, fetched.getNotes().size());
+      assertEquals(selected.getTotalRecords(), fetched.getTotalRecords());
+      assertEquals(selected.getNotes().stream().map(Note::getId).collect(Collectors.toList()),
+        fetched.getNotes().stream().map(Note::getId).collect(Collectors.toList()));
+    } finally {
+      ReflectionTestUtils.setField(noteRepository, "fetchSize", fetchSize);
+    }
+  }
+
+  @Test
+  public void shouldReturn400WhenTotalRecordsModeIsInvalid() {
+    getWithStatus(NOTES_PATH + "?totalRecords=approximate", SC_BAD_REQUEST);
+  }
+
+  @Test
+  public void shouldReturnChangesOfNotesAfterCursor() {
+    String cursor = readAllChanges();
+    postNoteWithOk(NOTE_1, USER9);
+    deleteWithNoContent("/notes/11111111-1111-1111-a111-111111111111");
+
+    NoteChangeCollection changes = getWithOk(NOTES_CHANGES_PATH + "?since=" + cursor).as(NoteChangeCollection.class);
+
+    assertEquals(2, changes.getChanges().size());
+    assertEquals("11111111-1111-1111-a111-111111111111", changes.getChanges().get(0).getId());
+    assertEquals(NoteChange.Operation.INSERT, changes.getChanges().get(0).getOperation());
+    assertEquals(2, changes.getChanges().get(0).getLinks().size());
+    assertEquals("11111111-1111-1111-a111-111111111111", changes.getChanges().get(1).getId());
+    assertEquals(NoteChange.Operation.DELETE, changes.getChanges().get(1).getOperation());
+
+    NoteChangeCollection nextChanges = getWithOk(NOTES_CHANGES_PATH + "?since=" + changes.getNextCursor())
+      .as(NoteChangeCollection.class);
+    assertTrue(nextChanges.getChanges().isEmpty());
+    assertEquals(changes.getNextCursor(), nextChanges.getNextCursor());
+  }
+
+  @Test
+  public void shouldReturn400WhenChangeCursorIsIncorrect() {
+    getWithStatus(NOTES_CHANGES_PATH + "?since=wrong", SC_BAD_REQUEST);
+  }
+
   @Test
   public void shouldFindNoteByIdAfterPost() {
     postNoteWithOk(NOTE_1, USER9);
@@ -270,6 +489,15 @@ public class NotesTest extends NotesTestBase {
     assertEquals(NOTE_TYPE_NAME, note.getType());
   }
 
+  @Test
+  public void shouldReturn304WhenNoteIsNotModified() {
+    postNoteWithOk(NOTE_1, USER9);
+    String etag = getWithOk("/notes/11111111-1111-1111-a111-111111111111").header(HttpHeaders.ETAG);
+
+    getWithIfNoneMatch("/notes/11111111-1111-1111-a111-111111111111", etag, SC_NOT_MODIFIED);
+    getWithIfNoneMatch("/notes/11111111-1111-1111-a111-111111111111", "\"outdated\"", SC_OK);
+  }
+
   @Test
   public void shouldGetNoteListWithTypes() {
     postNoteWithOk(NOTE_1, USER9);
@@ -596,8 +824,194 @@ public class NotesTest extends NotesTestBase {
     deleteWithNoContent(location);
   }
 
+  @Test
+  public void shouldImportNotesAndReportLinesThatAreNotImported() {
+    String notes = String.join("\n",
+      new JsonObject(NOTE_1).encode(),
+      NOT_JSON,
+      "",
+      new JsonObject(NOTE_3).put("typeId", "99999999-d25b-46dc-8427-1759d1db2057").encode(),
+      new JsonObject(NOTE_3).encode(),
+      new JsonObject(NOTE_1).encode());
+
+    NoteImportResult result = RestAssured.given()
+      .spec(givenWithUrl())
+      .header(TENANT_HEADER).header(USER9)
+      .contentType(ContentType.BINARY)
+      .body(notes)
+      .when()
+      .post(NOTES_IMPORT_PATH)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(SC_OK)
+      .extract().as(NoteImportResult.class);
+
+    assertEquals(5, result.getTotalLines().intValue());
+    assertEquals(2, result.getImported().intValue());
+    assertEquals(3, result.getFailed().intValue());
+    assertEquals(2, result.getErrors().get(0).getLine().intValue());
+    assertThat(result.getErrors().get(1).getMessage(), containsString("doesn't exist"));
+    assertEquals(6, result.getErrors().get(2).getLine().intValue());
+    assertThat(result.getErrors().get(2).getMessage(), containsString("already exists"));
+
+    final Note note = getWithOk("/notes/11111111-1111-1111-a111-111111111111").as(Note.class);
+    assertThat(note.getMetadata().getCreatedByUserId(), equalTo(USER9.getValue()));
+    assertThat(getWithOk(NOTES_PATH).as(NoteCollection.class).getTotalRecords(), equalTo(2));
+  }
+
+  @Test
+  public void shouldImportNotesAndReportLinesWithMalformedLinks() {
+    String notes = String.join("\n",
+      new JsonObject(NOTE_1).encode(),
+      new JsonObject(NOTE_3).put("links", new JsonArray().add(new JsonObject().put("type", "package"))).encode(),
+      new JsonObject(NOTE_2).encode());
+
+    NoteImportResult result = RestAssured.given()
+      .spec(givenWithUrl())
+      .header(TENANT_HEADER).header(USER9)
+      .contentType(ContentType.BINARY)
+      .body(notes)
+      .when()
+      .post(NOTES_IMPORT_PATH)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(SC_OK)
+      .extract().as(NoteImportResult.class);
+
+    assertEquals(3, result.getTotalLines().intValue());
+    assertEquals(2, result.getImported().intValue());
+    assertEquals(1, result.getFailed().intValue());
+    assertEquals(2, result.getErrors().get(0).getLine().intValue());
+    assertThat(result.getErrors().get(0).getMessage(), containsString("links[0].id may not be null"));
+    getWithOk("/notes/11111111-1111-1111-a111-111111111111");
+    getWithOk("/notes/22222222-2222-2222-a222-222222222222");
+  }
+
+  @Test
+  public void shouldCreateValidNotesOfBatchAndReportOthers() {
+    JsonObject batch = new JsonObject()
+      .put("notes", new JsonArray()
+        .add(new JsonObject(NOTE_1))
+        .add(new JsonObject(NOTE_3).put("typeId", "99999999-d25b-46dc-8427-1759d1db2057"))
+        .add(new JsonObject(NOTE_3).put("title", new JsonObject(NOTE_5_LONG_TITLE).getString("title")))
+        .add(new JsonObject(NOTE_3)));
+
+    NoteBatchResult result = postWithStatus(NOTES_BATCH_PATH, batch.encode(), SC_CREATED, USER9)
+      .as(NoteBatchResult.class);
+    // the same schema constraint fails a single note
+    Error singleNoteError = postWithStatus(NOTES_PATH, NOTE_5_LONG_TITLE, SC_UNPROCESSABLE_ENTITY, USER9)
+      .as(Errors.class).getErrors().get(0);
+
+    assertEquals(2, result.getNotes().size());
+    assertEquals(2, result.getErrors().size());
+    assertEquals(1, result.getErrors().get(0).getIndex().intValue());
+    assertThat(result.getErrors().get(0).getMessage(), containsString("doesn't exist"));
+    assertEquals(2, result.getErrors().get(1).getIndex().intValue());
+    assertThat(result.getErrors().get(1).getMessage(), is("title " + singleNoteError.getMessage()));
+
+    final Note note = getWithOk("/notes/11111111-1111-1111-a111-111111111111").as(Note.class);
+    assertThat(note.getCreator().getLastName(), equalTo(result.getNotes().get(0).getCreator().getLastName()));
+    assertThat(note.getMetadata().getCreatedByUserId(), equalTo(USER9.getValue()));
+  }
+
+  @Test
+  public void shouldReportNotesOfBatchWithMalformedLinks() {
+    JsonObject batch = new JsonObject()
+      .put("notes", new JsonArray()
+        .add(new JsonObject(NOTE_1))
+        .add(new JsonObject(NOTE_3).put("links", new JsonArray().add(new JsonObject().put("type", "package"))))
+        .add(new JsonObject(NOTE_2).put("links", new JsonArray().add(new JsonObject().put("id", "123-456789")))));
+
+    NoteBatchResult result = postWithStatus(NOTES_BATCH_PATH, batch.encode(), SC_CREATED, USER9)
+      .as(NoteBatchResult.class);
+
+    assertEquals(1, result.getNotes().size());
+    assertEquals(2, result.getErrors().size());
+    assertEquals(1, result.getErrors().get(0).getIndex().intValue());
+    assertThat(result.getErrors().get(0).getMessage(), containsString("links[0].id may not be null"));
+    assertEquals(2, result.getErrors().get(1).getIndex().intValue());
+    assertThat(result.getErrors().get(1).getMessage(), containsString("links[0].type may not be null"));
+    getWithOk("/notes/11111111-1111-1111-a111-111111111111");
+  }
+
+  @Test
+  public void shouldCreateNoNotesOfAtomicBatchWhenNoteAlreadyExists() {
+    postNoteWithOk(NOTE_1, USER9);
+    JsonObject batch = new JsonObject()
+      .put("atomic", true)
+      .put("notes", new JsonArray()
+        .add(new JsonObject(NOTE_2))
+        .add(new JsonObject(NOTE_1)));
+
+    NoteBatchResult result = postWithStatus(NOTES_BATCH_PATH, batch.encode(), SC_UNPROCESSABLE_ENTITY, USER9)
+      .as(NoteBatchResult.class);
+
+    assertTrue(result.getNotes().isEmpty());
+    assertEquals(1, result.getErrors().get(0).getIndex().intValue());
+    assertThat(result.getErrors().get(0).getMessage(), containsString("already exists"));
+    getWithStatus("/notes/22222222-2222-2222-a222-222222222222", SC_NOT_FOUND);
+  }
+
+  @Test
+  public void shouldExportNotesPageByPage() {
+    postNoteWithOk(NOTE_1, USER9);
+    postNoteWithOk(NOTE_2, USER8);
+
+    ExtractableResponse<Response> firstPage = getWithOk(NOTES_EXPORT_PATH + "?limit=1");
+    String cursor = firstPage.header(NEXT_CURSOR_HEADER);
+    assertEquals("11111111-1111-1111-a111-111111111111", new JsonObject(firstPage.asString().trim()).getString("id"));
+    assertEquals("11111111-1111-1111-a111-111111111111", cursor);
+    assertEquals(NOTE_TYPE_NAME, new JsonObject(firstPage.asString().trim()).getString("type"));
+
+    ExtractableResponse<Response> secondPage = getWithOk(NOTES_EXPORT_PATH + "?limit=1&cursor=" + cursor);
+    assertEquals("22222222-2222-2222-a222-222222222222", new JsonObject(secondPage.asString().trim()).getString("id"));
+
+    ExtractableResponse<Response> lastPage = getWithOk(NOTES_EXPORT_PATH + "?limit=1&cursor="
+      + secondPage.header(NEXT_CURSOR_HEADER));
+    assertTrue(lastPage.asString().isEmpty());
+    assertNull(lastPage.header(NEXT_CURSOR_HEADER));
+  }
+
+  @Test
+  public void shouldExportNotesInCsvFormat() {
+    postNoteWithOk(NOTE_1, USER9);
+
+    String[] lines = getWithOk(NOTES_EXPORT_PATH + "?format=csv&domain=" + DOMAIN).asString().split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("id,typeId,type,domain,title,content,links"));
+    assertTrue(lines[1].startsWith("11111111-1111-1111-a111-111111111111," + NOTE_TYPE_ID + "," + NOTE_TYPE_NAME));
+  }
+
+  @Test
+  public void shouldReturn400WhenExportUpdatedSinceIsIncorrect() {
+    getWithStatus(NOTES_EXPORT_PATH + "?updatedSince=yesterday", SC_BAD_REQUEST);
+  }
+
   private void getNoteAndCheckContent(String query, String content) {
     final String response = getWithOk(NOTES_PATH + query).asString();
     assertThat(response, containsString(content));
   }
+
+  /**
+   * Reads all changes that are already in the change log and returns cursor that points to the last one
+   */
+  private String readAllChanges() {
+    NoteChangeCollection changes = getWithOk(NOTES_CHANGES_PATH + "?limit=1000").as(NoteChangeCollection.class);
+    while (!changes.getChanges().isEmpty()) {
+      changes = getWithOk(NOTES_CHANGES_PATH + "?limit=1000&since=" + changes.getNextCursor())
+        .as(NoteChangeCollection.class);
+    }
+    return changes.getNextCursor();
+  }
+
+  private void getWithIfNoneMatch(String path, String etag, int expectedStatus) {
+    RestAssured.given()
+      .spec(givenWithUrl())
+      .header(TENANT_HEADER).header(new Header(HttpHeaders.IF_NONE_MATCH, etag))
+      .when()
+      .get(path)
+      .then()
+      .log().ifValidationFails()
+      .statusCode(expectedStatus);
+  }
 }